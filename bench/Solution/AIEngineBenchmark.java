@@ -0,0 +1,86 @@
+package Solution;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// One operation searches every position of the chosen phase from a cold table.
+// Engines are built as games build them, so the stronger levels solve
+// endgames exactly; the opening book and the on-disk caches are left out.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AIEngineBenchmark
+{
+    @Param({"1", "2", "3", "4", "5"})
+    public int difficulty;
+    
+    @Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME, BenchmarkPositions.ENDGAME})
+    public String phase;
+    
+    // Override with -p threads=1,2,4,8 to measure parallel scaling
+    @Param({"1"})
+    public int threads;
+    
+    private GameModel[] positions;
+    private GameModel searchModel;
+    private AIEngine engine;
+    
+    @Setup
+    public void setUp()
+    {
+        String[] moves = BenchmarkPositions.movesFor(phase);
+        positions = new GameModel[moves.length];
+        for (int i = 0; i < moves.length; i++)
+        {
+            positions[i] = BenchmarkPositions.load(moves[i]);
+        }
+        
+        GameConfig config = new GameConfig(GameConfig.HUMAN_COMPUTER, difficulty);
+        config.setSearchThreads(threads);
+        config.setOpeningBookPath(null);
+        config.setEndgameCachePath(null);
+        config.setAnalysisCachePath(null);
+        searchModel = new GameModel();
+        engine = GameController.createEngine(config, searchModel, null, null);
+    }
+    
+    // The search table and the solver's
+    @Setup(Level.Invocation)
+    public void clearTables()
+    {
+        engine.clearTable();
+    }
+    
+    @TearDown
+    public void tearDown()
+    {
+        engine.shutdown();
+    }
+    
+    @Benchmark
+    public void findBestMove(Blackhole blackhole)
+    {
+        for (GameModel position : positions)
+        {
+            searchModel.copyFrom(position);
+            blackhole.consume(engine.findBestMove(BenchmarkPositions.playerToMove(searchModel)));
+            blackhole.consume(engine.getNodesEvaluated());
+        }
+    }
+}
\ No newline at end of file
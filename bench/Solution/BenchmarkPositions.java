@@ -0,0 +1,61 @@
+package Solution;
+
+// Fixed corpus of positions for the search benchmarks, written as the
+// columns played from an empty board, 1-based, red moving first
+final class BenchmarkPositions
+{
+    static final String OPENING = "opening";
+    static final String MIDGAME = "midgame";
+    static final String ENDGAME = "endgame";
+    
+    private static final String[] OPENING_MOVES = {
+        "",
+        "4",
+        "44",
+        "4453"
+    };
+    
+    private static final String[] MIDGAME_MOVES = {
+        "76751477177652",
+        "66222423133426",
+        "1347464176146562",
+        "222625161235555421"
+    };
+    
+    private static final String[] ENDGAME_MOVES = {
+        "2654627214414425412312667711",
+        "2766633631757263215443165721",
+        "576272455456777326255461474112",
+        "32432437631363227566667721745121"
+    };
+    
+    private BenchmarkPositions()
+    {
+    }
+    
+    static String[] movesFor(String phase)
+    {
+        switch (phase)
+        {
+            case OPENING: return OPENING_MOVES;
+            case MIDGAME: return MIDGAME_MOVES;
+            case ENDGAME: return ENDGAME_MOVES;
+            default: throw new IllegalArgumentException("Unknown phase: " + phase);
+        }
+    }
+    
+    static GameModel load(String moves)
+    {
+        GameModel model = new GameModel();
+        for (int i = 0; i < moves.length(); i++)
+        {
+            model.makeMove(moves.charAt(i) - '1', playerToMove(model));
+        }
+        return model;
+    }
+    
+    static char playerToMove(GameModel model)
+    {
+        return (model.getMoveCount() % 2 == 0) ? GameModel.RED : GameModel.BLACK;
+    }
+}
\ No newline at end of file
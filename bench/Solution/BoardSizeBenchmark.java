@@ -0,0 +1,103 @@
+package Solution;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Board sizes written columns x rows x connect. 7x6x4 and 8x6x4 fit in one
+// long per player; 9x7x4 and 10x10x5 take the long-array path.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardSizeBenchmark
+{
+    private static final long SEED = 42;
+    private static final int SEARCH_DEPTH = 6;
+    
+    // A depth-6 search visits a few thousand nodes at most, so a small table
+    // holds them all and clearing it costs a couple of microseconds instead
+    // of more than the search itself
+    private static final int TABLE_SIZE = 1 << 12;
+    
+    @Param({"7x6x4", "8x6x4", "9x7x4", "10x10x5"})
+    public String board;
+    
+    private GameModel model;
+    private AIEngine engine;
+    private char player;
+    private int column;
+    
+    @Setup
+    public void setUp()
+    {
+        String[] size = board.split("x");
+        model = new GameModel(Integer.parseInt(size[1]), Integer.parseInt(size[0]), Integer.parseInt(size[2]));
+        
+        // A third of the board filled with random moves that do not win
+        SplittableRandom random = new SplittableRandom(SEED);
+        int plies = model.getRows() * model.getCols() / 3;
+        while (model.getMoveCount() < plies)
+        {
+            int col = random.nextInt(model.getCols());
+            if (model.isColumnFull(col))
+            {
+                continue;
+            }
+            model.makeMove(col, BenchmarkPositions.playerToMove(model));
+            if (model.checkWinnerAt(col) != GameModel.EMPTY)
+            {
+                model.undoMove(col);
+            }
+        }
+        
+        engine = new AIEngine(new GameModel(model), SEARCH_DEPTH, new TranspositionTable(TABLE_SIZE));
+        player = BenchmarkPositions.playerToMove(model);
+        column = model.getCols() / 2;
+        while (model.isColumnFull(column))
+        {
+            column = (column + 1) % model.getCols();
+        }
+    }
+    
+    @Benchmark
+    public char makeUndoMove()
+    {
+        model.makeMove(column, player);
+        char winner = model.checkWinnerAt(column);
+        model.undoMove(column);
+        return winner;
+    }
+    
+    @Benchmark
+    public char checkWinner()
+    {
+        return model.checkWinner();
+    }
+    
+    @Benchmark
+    public long getPositionKey()
+    {
+        return model.getPositionKey();
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int findBestMove()
+    {
+        engine.clearTable();
+        return engine.findBestMove(player);
+    }
+}
\ No newline at end of file
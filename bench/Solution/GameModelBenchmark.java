@@ -0,0 +1,82 @@
+package Solution;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameModelBenchmark
+{
+    @Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME, BenchmarkPositions.ENDGAME})
+    public String phase;
+    
+    private GameModel model;
+    private AIEngine engine;
+    private char player;
+    private int column;
+    
+    @Setup
+    public void setUp()
+    {
+        model = BenchmarkPositions.load(BenchmarkPositions.movesFor(phase)[1]);
+        engine = new AIEngine(model, 1);
+        engine.evaluate();
+        player = BenchmarkPositions.playerToMove(model);
+        
+        column = 0;
+        while (model.isColumnFull(column))
+        {
+            column++;
+        }
+    }
+    
+    @Benchmark
+    public char makeUndoMove()
+    {
+        model.makeMove(column, player);
+        char winner = model.checkWinnerAt(column);
+        model.undoMove(column);
+        return winner;
+    }
+    
+    @Benchmark
+    public char checkWinner()
+    {
+        return model.checkWinner();
+    }
+    
+    @Benchmark
+    public char[][] getBoardState()
+    {
+        return model.getBoardState();
+    }
+    
+    // The search's per-node cost: the score after a make/undo pair,
+    // updated incrementally
+    @Benchmark
+    public int evaluateBoard()
+    {
+        return engine.evaluateMove(column, player);
+    }
+    
+    // Scoring the whole board from scratch, as on loading a position
+    @Benchmark
+    public int evaluateFullBoard()
+    {
+        return engine.evaluate();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package Solution;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// One operation solves every endgame position from a cold table
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark
+{
+    private GameModel[] positions;
+    private Solver solver;
+    
+    @Setup
+    public void setUp()
+    {
+        String[] moves = BenchmarkPositions.movesFor(BenchmarkPositions.ENDGAME);
+        positions = new GameModel[moves.length];
+        for (int i = 0; i < moves.length; i++)
+        {
+            positions[i] = BenchmarkPositions.load(moves[i]);
+        }
+        solver = new Solver(Solver.ENDGAME_TABLE_SIZE);
+    }
+    
+    @Setup(Level.Invocation)
+    public void clearTable()
+    {
+        solver.clear();
+    }
+    
+    @Benchmark
+    public void solveEndgames(Blackhole blackhole)
+    {
+        for (GameModel position : positions)
+        {
+            blackhole.consume(solver.solve(position, BenchmarkPositions.playerToMove(position)));
+        }
+    }
+}
\ No newline at end of file
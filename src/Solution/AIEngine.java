@@ -1,55 +1,722 @@
 package Solution;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class AIEngine
 {
     private static final int[] SCORE_TABLE = {0, 1, 4, 32, 128, 512};
     
+    // Above this many empty cells the solver rarely finishes within seconds,
+    // so it is not tried at all
+    private static final int SOLVER_MAX_EMPTY_CELLS = 32;
+    
+    // Set on the key when black is to move, above the bits used by GameModel
+    private static final long BLACK_TO_MOVE = 1L << 62;
+    
+    // Ordering priorities; history scores stay below KILLER_PRIORITY
+    private static final int TABLE_MOVE_PRIORITY = 1 << 30;
+    private static final int KILLER_PRIORITY = 1 << 29;
+    private static final int HISTORY_LIMIT = 1 << 28;
+    
     private final GameModel model;
+    private final int cols;
     private final int maxDepth;
+    private final TranspositionTable table;
     private int nodesEvaluated;
+    private long betaCutoffs;
+    private long firstMoveCutoffs;
+    private long tableProbes;
+    private long tableHits;
+    private SearchStats searchStats;
+    private volatile int searchProgress;
+    private int depthReached;
+    private int rootScore;
+    
+    // Search budget, checked while searching
+    private long timeLimitMillis;
+    private long nodeLimit;
+    private long deadline;
+    private volatile boolean stopRequested;
+    private boolean aborted;
+    
+    // Move ordering state
+    private boolean moveOrdering = true;
+    private boolean symmetry;
+    private final int[] centerOutOrder;
+    private final int[][] moveBuffers;
+    private final int[][] moveScores;
+    private final int[][] killerMoves;
+    private final int[][] historyScores;
+    
+    // Lazy SMP: helper engines search copies of the position and share the table
+    private int threads = 1;
+    private AIEngine[] helpers;
+    private ExecutorService helperPool;
+    private int depthOffset;
+    
+    // Pondering: best reply found for each opponent move, keyed by the resulting position
+    private final long[] ponderKeys;
+    private final int[] ponderMoves;
+    private final int[] ponderDepths;
+    private boolean ponderHit;
+    
+    private OpeningBook openingBook;
+    
+    // Exact solving, tried before heuristic search once few enough cells are empty
+    private Solver solver;
+    private int solverThreshold;
+    private SolverResult solverResult;
+    private int solverFailedAt = Integer.MAX_VALUE;
+    private int lastEmptyCells;
+    private EndgameCache endgameCache;
+    
+    // Heuristic score kept up to date by play/unplay. Every possible
+    // connect-length segment is a window; cellWindows lists the windows
+    // through each cell and windowScores the value of a window by disc count.
+    private final int[][] cellWindows;
+    private final int[] windowScores;
+    private final int[] windowRedCounts;
+    private final int[] windowBlackCounts;
+    private int heuristicScore;
     
     public AIEngine(GameModel model, int maxDepth)
+    {
+        this(model, maxDepth, new TranspositionTable(GameConfig.DEFAULT_TRANSPOSITION_TABLE_SIZE));
+    }
+    
+    public AIEngine(GameModel model, int maxDepth, TranspositionTable table)
     {
         this.model = model;
+        this.cols = model.getCols();
         this.maxDepth = maxDepth;
+        this.table = table;
+        
+        int maxPly = model.getRows() * cols + 1;
+        centerOutOrder = centerOutOrder(cols);
+        moveBuffers = new int[maxPly][cols];
+        moveScores = new int[maxPly][cols];
+        killerMoves = new int[maxPly][2];
+        historyScores = new int[2][cols];
+        ponderKeys = new long[cols];
+        ponderMoves = new int[cols];
+        ponderDepths = new int[cols];
+        
+        cellWindows = cellWindows(model.getRows(), cols, model.getConnect());
+        windowScores = windowScores(model.getConnect());
+        int windowCount = 0;
+        for (int[] windows : cellWindows)
+        {
+            for (int window : windows)
+            {
+                windowCount = Math.max(windowCount, window + 1);
+            }
+        }
+        windowRedCounts = new int[windowCount];
+        windowBlackCounts = new int[windowCount];
+        
+        // With an even number of columns the center bonus is not symmetric
+        symmetry = model.isBitboard() && cols % 2 == 1;
+    }
+    
+    private static int[] centerOutOrder(int cols)
+    {
+        int[] order = new int[cols];
+        int center = cols / 2;
+        for (int i = 0; i < cols; i++)
+        {
+            // 3, 2, 4, 1, 5, 0, 6 on a standard board
+            order[i] = (i % 2 == 1) ? center - (i + 1) / 2 : center + i / 2;
+        }
+        return order;
+    }
+    
+    private static int[][] cellWindows(int rows, int cols, int connect)
+    {
+        List<List<Integer>> cellWindows = new ArrayList<>();
+        for (int cell = 0; cell < rows * cols; cell++)
+        {
+            cellWindows.add(new ArrayList<>());
+        }
+        
+        int windows = 0;
+        
+        // Horizontal
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col <= cols - connect; col++)
+            {
+                addWindow(cellWindows, windows++, cols, connect, row, col, 0, 1);
+            }
+        }
+        
+        // Vertical
+        for (int col = 0; col < cols; col++)
+        {
+            for (int row = 0; row <= rows - connect; row++)
+            {
+                addWindow(cellWindows, windows++, cols, connect, row, col, 1, 0);
+            }
+        }
+        
+        // Top-left to bottom-right
+        for (int row = 0; row <= rows - connect; row++)
+        {
+            for (int col = 0; col <= cols - connect; col++)
+            {
+                addWindow(cellWindows, windows++, cols, connect, row, col, 1, 1);
+            }
+        }
+        
+        // Bottom-left to top-right
+        for (int row = connect - 1; row < rows; row++)
+        {
+            for (int col = 0; col <= cols - connect; col++)
+            {
+                addWindow(cellWindows, windows++, cols, connect, row, col, -1, 1);
+            }
+        }
+        
+        int[][] result = new int[cellWindows.size()][];
+        for (int cell = 0; cell < result.length; cell++)
+        {
+            result[cell] = cellWindows.get(cell).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+    
+    private static void addWindow(List<List<Integer>> cellWindows, int window, int cols, int connect,
+                                  int row, int col, int rowStep, int colStep)
+    {
+        for (int i = 0; i < connect; i++)
+        {
+            cellWindows.get((row + i * rowStep) * cols + col + i * colStep).add(window);
+        }
+    }
+    
+    // A window one disc short of a line scores like three of four on a
+    // standard board, and so on down; longer lines give single discs the
+    // lowest non-zero score
+    private static int[] windowScores(int connect)
+    {
+        int[] scores = new int[connect + 1];
+        for (int count = 1; count <= connect; count++)
+        {
+            scores[count] = SCORE_TABLE[Math.max(1, count + 4 - connect)];
+        }
+        return scores;
+    }
+    
+    // Zero disables the corresponding budget
+    public void setTimeLimit(long timeLimitMillis)
+    {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+    
+    public void setNodeLimit(long nodeLimit)
+    {
+        this.nodeLimit = nodeLimit;
+    }
+    
+    public void setOpeningBook(OpeningBook openingBook)
+    {
+        this.openingBook = openingBook;
+    }
+    
+    // The solver is tried on positions with at most emptyCellThreshold empty cells
+    public void setSolver(Solver solver, int emptyCellThreshold)
+    {
+        this.solver = solver;
+        this.solverThreshold = emptyCellThreshold;
+    }
+    
+    // Solved positions are looked up here before solving and added after
+    public void setEndgameCache(EndgameCache endgameCache)
+    {
+        this.endgameCache = endgameCache;
+    }
+    
+    // Disabling falls back to plain left-to-right order, for comparing node counts
+    public void setMoveOrdering(boolean moveOrdering)
+    {
+        this.moveOrdering = moveOrdering;
+    }
+    
+    // A position and its mirror image share table entries, and where the
+    // two are the same position only the moves on one side of the center
+    // are searched. On by default for bitboards with an odd number of
+    // columns, where the evaluation is symmetric too; disabling treats
+    // mirrored positions as unrelated, for comparing node counts.
+    public void setSymmetry(boolean symmetry)
+    {
+        this.symmetry = symmetry && model.isBitboard() && cols % 2 == 1;
+    }
+    
+    // May be called from another thread; the search returns its last completed result
+    public void stop()
+    {
+        stopRequested = true;
+        if (solver != null)
+        {
+            solver.stop();
+        }
+    }
+    
+    // With more than one thread the result may vary from run to run;
+    // a single thread always searches the same tree
+    public void setThreads(int threads)
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("Invalid thread count");
+        }
+        
+        this.threads = threads;
+    }
+    
+    public void shutdown()
+    {
+        if (helperPool != null)
+        {
+            helperPool.shutdownNow();
+            helperPool = null;
+            helpers = null;
+        }
+    }
+    
+    // Forgets every stored position, so the next game is searched from scratch
+    public void clearTable()
+    {
+        table.clear();
+        if (solver != null)
+        {
+            solver.clear();
+        }
+        Arrays.fill(ponderKeys, -1L);
+    }
+    
+    // For callers whose positions are unrelated to each other: forgets where
+    // the solver last gave up, so whether the next one is solved does not
+    // depend on the one before
+    public void newPosition()
+    {
+        solverFailedAt = Integer.MAX_VALUE;
     }
     
     public int findBestMove(char player)
     {
+        long start = System.nanoTime();
+        rootScore = 0;
+        resetCounters();
+        int move = chooseMove(player);
+        searchStats = new SearchStats(nodesEvaluated, 
+                                      System.nanoTime() - start, 
+                                      depthReached, 
+                                      betaCutoffs, 
+                                      firstMoveCutoffs, 
+                                      tableProbes, 
+                                      tableHits);
+        EngineStats.getInstance().record(searchStats);
+        return move;
+    }
+    
+    // The move gets one deadline: whatever the solver does not use of it is
+    // left for the heuristic search
+    private int chooseMove(char player)
+    {
+        // Cleared once, before any of the move's work, so a stop that comes
+        // while the book or the endgame cache is read still stops the solver
+        stopRequested = false;
+        if (solver != null)
+        {
+            solver.reset();
+        }
+        solverResult = null;
+        long moveDeadline = (timeLimitMillis > 0) ? System.currentTimeMillis() + timeLimitMillis : Long.MAX_VALUE;
+        
+        // Pondered replies come from the heuristic search, so a position the
+        // solver takes on is solved instead
+        boolean solve = shouldSolve();
+        int pondered = takePonderedMove(player);
+        if (pondered != TranspositionTable.NO_MOVE && !solve)
+        {
+            return pondered;
+        }
+        ponderHit = false;
+        
+        if (openingBook != null)
+        {
+            int bookMove = openingBook.lookup(positionKey(player));
+            if (bookMove >= 0 && bookMove < cols && !model.isColumnFull(bookMove))
+            {
+                nodesEvaluated = 0;
+                depthReached = 0;
+                return bookMove;
+            }
+        }
+        
+        if (solve)
+        {
+            // Cached under the smaller key of the position and its mirror,
+            // like the table
+            long boardKey = model.getPositionKey();
+            long mirroredKey = symmetry ? model.getMirroredPositionKey() : boardKey;
+            boolean mirrored = mirroredKey < boardKey;
+            long key = withSideToMove(Math.min(boardKey, mirroredKey), player);
+            solverResult = (endgameCache != null) ? mirrorResult(endgameCache.get(key), mirrored) : null;
+            nodesEvaluated = 0;
+            if (solverResult == null)
+            {
+                // A timed move lends the solver at most half of what is left
+                long now = System.currentTimeMillis();
+                long solverDeadline = (moveDeadline == Long.MAX_VALUE) ? Long.MAX_VALUE : now + (moveDeadline - now) / 2;
+                solverResult = solver.solve(model, player, solverDeadline);
+                nodesEvaluated = (int)Math.min(solver.getNodeCount(), Integer.MAX_VALUE);
+                if (solverResult == null && !stopRequested)
+                {
+                    solverFailedAt = lastEmptyCells;
+                }
+                if (solverResult != null && endgameCache != null)
+                {
+                    endgameCache.put(key, mirrorResult(solverResult, mirrored));
+                }
+            }
+            if (solverResult != null)
+            {
+                depthReached = solverResult.getDistance();
+                return solverResult.getBestMove();
+            }
+        }
+        
+        table.newSearch();
+        if (threads <= 1)
+        {
+            return search(player, moveDeadline);
+        }
+        
+        Future<?>[] running = startHelpers(player);
+        try
+        {
+            return search(player, moveDeadline);
+        }
+        finally
+        {
+            stopHelpers(running);
+        }
+    }
+    
+    // Solves only positions the solver can be expected to finish: few enough
+    // empty cells, and fewer than when it last gave up this game. A position
+    // with more empty cells than the last one means a new game, as does a
+    // call to newPosition().
+    private boolean shouldSolve()
+    {
+        int emptyCells = model.getRows() * cols - model.getMoveCount();
+        if (emptyCells > lastEmptyCells)
+        {
+            solverFailedAt = Integer.MAX_VALUE;
+        }
+        lastEmptyCells = emptyCells;
+        
+        return solver != null && 
+               emptyCells <= solverThreshold && 
+               emptyCells <= SOLVER_MAX_EMPTY_CELLS && 
+               emptyCells < solverFailedAt;
+    }
+    
+    private Future<?>[] startHelpers(char player)
+    {
+        if (helpers == null || helpers.length != threads - 1)
+        {
+            shutdown();
+            helpers = new AIEngine[threads - 1];
+            for (int i = 0; i < helpers.length; i++)
+            {
+                helpers[i] = new AIEngine(new GameModel(model), maxDepth + 1, table);
+                helpers[i].depthOffset = (i % 2 == 0) ? 1 : 0;
+            }
+            helperPool = Executors.newFixedThreadPool(helpers.length, task ->
+            {
+                Thread thread = new Thread(task, "AIEngine helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        
+        Future<?>[] running = new Future<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++)
+        {
+            AIEngine engine = helpers[i];
+            engine.model.copyFrom(model);
+            engine.stopRequested = false;
+            engine.moveOrdering = moveOrdering;
+            engine.symmetry = symmetry;
+            // Helpers run until the main search stops them
+            running[i] = helperPool.submit(() -> engine.search(player, Long.MAX_VALUE));
+        }
+        return running;
+    }
+    
+    private void stopHelpers(Future<?>[] running)
+    {
+        for (AIEngine engine : helpers)
+        {
+            engine.stop();
+        }
+        
+        for (int i = 0; i < running.length; i++)
+        {
+            try
+            {
+                running[i].get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException e)
+            {
+                throw new IllegalStateException("Helper search failed", e.getCause());
+            }
+            nodesEvaluated += helpers[i].nodesEvaluated;
+            betaCutoffs += helpers[i].betaCutoffs;
+            firstMoveCutoffs += helpers[i].firstMoveCutoffs;
+            tableProbes += helpers[i].tableProbes;
+            tableHits += helpers[i].tableHits;
+        }
+    }
+    
+    private int search(char player, long searchDeadline)
+    {
+        resetCounters();
+        searchProgress = 0;
+        depthReached = 0;
+        aborted = false;
+        deadline = searchDeadline;
+        loadPosition();
+        resetOrdering();
+        
+        int bestColumn = firstLegalColumn();
+        int depthLimit = depthLimit();
+        
+        for (int depth = 1 + depthOffset; depth <= depthLimit; depth++)
+        {
+            int column = searchRoot(player, depth, bestColumn);
+            if (aborted)
+            {
+                break;
+            }
+            
+            bestColumn = column;
+            depthReached = depth;
+            
+            // A forced result will not change with more depth
+            if (rootScore == Integer.MAX_VALUE || rootScore == Integer.MIN_VALUE)
+            {
+                break;
+            }
+        }
+        
+        return bestColumn;
+    }
+    
+    // Searches the replies to each possible opponent move while the opponent
+    // is thinking, one depth at a time across all moves, until stop() is
+    // called or every reply is searched to full depth. Results are kept for
+    // the next findBestMove and in the table. Runs on a single thread and
+    // does not clear a pending stop request.
+    public void ponder(char opponent)
+    {
+        char player = (opponent == GameModel.RED) ? GameModel.BLACK : GameModel.RED;
+        Arrays.fill(ponderKeys, -1L);
+        table.newSearch();
         nodesEvaluated = 0;
-        int bestColumn = 0;
-        int bestScore = (player == GameModel.RED) ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        aborted = false;
+        deadline = Long.MAX_VALUE;
         
-        for (int col = 0; col < GameModel.COLS; col++)
+        for (int depth = 1; depth <= maxDepth; depth++)
         {
-            if (model.isColumnFull(col))
+            boolean searched = false;
+            for (int col : centerOutOrder)
             {
-                continue;
+                if (model.isColumnFull(col))
+                {
+                    continue;
+                }
+                
+                model.makeMove(col, opponent);
+                searched |= ponderReply(col, player, depth);
+                model.undoMove(col);
+                
+                if (aborted)
+                {
+                    return;
+                }
             }
             
-            model.makeMove(col, player);
-            int score = minimax(maxDepth - 1, 
+            // Every reply is already searched as deep as it can go
+            if (!searched)
+            {
+                return;
+            }
+        }
+    }
+    
+    private boolean ponderReply(int opponentColumn, char player, int depth)
+    {
+        if (model.checkWinnerAt(opponentColumn) != GameModel.EMPTY || model.isBoardFull())
+        {
+            return false;
+        }
+        
+        long key = positionKey(player);
+        int limit = depthLimit();
+        if (ponderKeys[opponentColumn] == key && ponderDepths[opponentColumn] >= Math.min(depth, limit))
+        {
+            return false;
+        }
+        
+        loadPosition();
+        resetOrdering();
+        int firstColumn = (ponderKeys[opponentColumn] == key) ? ponderMoves[opponentColumn] : firstLegalColumn();
+        int column = searchRoot(player, Math.min(depth, limit), firstColumn);
+        if (aborted)
+        {
+            return false;
+        }
+        
+        boolean forced = rootScore == Integer.MAX_VALUE || rootScore == Integer.MIN_VALUE;
+        ponderKeys[opponentColumn] = key;
+        ponderMoves[opponentColumn] = column;
+        ponderDepths[opponentColumn] = forced ? limit : Math.min(depth, limit);
+        return true;
+    }
+    
+    // Returns the pondered reply when it covers the current position to full depth
+    private int takePonderedMove(char player)
+    {
+        ponderHit = false;
+        long key = positionKey(player);
+        int move = TranspositionTable.NO_MOVE;
+        
+        for (int col = 0; col < cols; col++)
+        {
+            if (ponderKeys[col] == key && ponderDepths[col] >= depthLimit())
+            {
+                move = ponderMoves[col];
+                ponderHit = true;
+                depthReached = ponderDepths[col];
+                nodesEvaluated = 0;
+            }
+        }
+        
+        Arrays.fill(ponderKeys, -1L);
+        return move;
+    }
+    
+    private void resetCounters()
+    {
+        nodesEvaluated = 0;
+        betaCutoffs = 0;
+        firstMoveCutoffs = 0;
+        tableProbes = 0;
+        tableHits = 0;
+    }
+    
+    private int depthLimit()
+    {
+        return Math.min(maxDepth, model.getRows() * cols - model.getMoveCount());
+    }
+    
+    private int searchRoot(char player, int depth, int firstColumn)
+    {
+        int bestColumn = firstColumn;
+        int bestScore = (player == GameModel.RED) ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int alpha = Integer.MIN_VALUE;
+        int beta = Integer.MAX_VALUE;
+        
+        boolean symmetric = symmetry && model.getMirroredPositionKey() == model.getPositionKey();
+        int moveCount = orderMoves(0, player, firstColumn, symmetric);
+        int[] moves = moveBuffers[0];
+        for (int index = 0; index < moveCount; index++)
+        {
+            int col = moves[index];
+            
+            play(col, player);
+            int score = minimax(depth - 1, 1,
                               (player == GameModel.RED) ? GameModel.BLACK : GameModel.RED,
-                              Integer.MIN_VALUE, 
-                              Integer.MAX_VALUE);
-            model.undoMove(col);
+                              alpha, 
+                              beta,
+                              col);
+            unplay(col);
             
-            if ((player == GameModel.RED && score > bestScore) ||
-                (player == GameModel.BLACK && score < bestScore))
+            if (aborted)
+            {
+                return bestColumn;
+            }
+            
+            // Later columns only need to prove they are strictly better
+            if (player == GameModel.RED && score > bestScore)
             {
                 bestScore = score;
                 bestColumn = col;
+                alpha = score;
+            }
+            else if (player == GameModel.BLACK && score < bestScore)
+            {
+                bestScore = score;
+                bestColumn = col;
+                beta = score;
             }
         }
         
+        rootScore = bestScore;
         return bestColumn;
     }
     
-    private int minimax(int depth, char player, int alpha, int beta)
+    private int firstLegalColumn()
+    {
+        for (int col = 0; col < cols; col++)
+        {
+            if (!model.isColumnFull(col))
+            {
+                return col;
+            }
+        }
+        return 0;
+    }
+    
+    private boolean outOfBudget()
+    {
+        if ((nodesEvaluated & 1023) == 0)
+        {
+            searchProgress = nodesEvaluated;
+            if (System.currentTimeMillis() >= deadline)
+            {
+                aborted = true;
+            }
+        }
+        if (stopRequested || (nodeLimit > 0 && nodesEvaluated >= nodeLimit))
+        {
+            aborted = true;
+        }
+        return aborted;
+    }
+    
+    private int minimax(int depth, int ply, char player, int alpha, int beta, int lastColumn)
     {
         nodesEvaluated++;
+        if (outOfBudget())
+        {
+            return 0;
+        }
         
-        char winner = model.checkWinner();
+        char winner = model.checkWinnerAt(lastColumn);
         if (winner != GameModel.EMPTY)
         {
             return (winner == GameModel.RED) ? Integer.MAX_VALUE : Integer.MIN_VALUE;
@@ -60,154 +727,333 @@ public class AIEngine
             return evaluateBoard();
         }
         
-        if (player == GameModel.RED)
+        // Stored under the smaller of the position's and its mirror's keys,
+        // with the move mirrored along with the position
+        long boardKey = model.getPositionKey();
+        long mirroredKey = symmetry ? model.getMirroredPositionKey() : boardKey;
+        boolean mirrored = mirroredKey < boardKey;
+        long key = withSideToMove(Math.min(boardKey, mirroredKey), player);
+        long entry = table.probe(key);
+        int tableMove = TranspositionTable.NO_MOVE;
+        tableProbes++;
+        if (entry != 0L)
         {
-            int maxScore = Integer.MIN_VALUE;
-            for (int col = 0; col < GameModel.COLS; col++)
+            tableHits++;
+            tableMove = mirrorMove(TranspositionTable.moveOf(entry), mirrored);
+            if (TranspositionTable.depthOf(entry) >= depth)
             {
-                if (model.isColumnFull(col))
+                int tableScore = TranspositionTable.scoreOf(entry);
+                switch (TranspositionTable.boundOf(entry))
                 {
-                    continue;
+                    case TranspositionTable.EXACT: return tableScore;
+                    case TranspositionTable.LOWER_BOUND: alpha = Math.max(alpha, tableScore); break;
+                    case TranspositionTable.UPPER_BOUND: beta = Math.min(beta, tableScore); break;
+                    default: break;
+                }
+                if (beta <= alpha)
+                {
+                    return tableScore;
                 }
+            }
+        }
+        
+        int searchAlpha = alpha;
+        int searchBeta = beta;
+        int bestMove = TranspositionTable.NO_MOVE;
+        int bestScore;
+        int moveCount = orderMoves(ply, player, tableMove, symmetry && mirroredKey == boardKey);
+        int[] moves = moveBuffers[ply];
+        
+        if (player == GameModel.RED)
+        {
+            bestScore = Integer.MIN_VALUE;
+            for (int index = 0; index < moveCount; index++)
+            {
+                int col = moves[index];
                 
-                model.makeMove(col, player);
-                int score = minimax(depth - 1, GameModel.BLACK, alpha, beta);
-                model.undoMove(col);
+                play(col, player);
+                int score = minimax(depth - 1, ply + 1, GameModel.BLACK, alpha, beta, col);
+                unplay(col);
                 
-                maxScore = Math.max(maxScore, score);
+                if (aborted)
+                {
+                    return 0;
+                }
+                
+                if (score > bestScore || bestMove == TranspositionTable.NO_MOVE)
+                {
+                    bestScore = score;
+                    bestMove = col;
+                }
                 alpha = Math.max(alpha, score);
                 if (beta <= alpha)
                 {
+                    recordCutoff(ply, player, col, depth, index);
                     break;
                 }
             }
-            return maxScore;
         }
         else
         {
-            int minScore = Integer.MAX_VALUE;
-            for (int col = 0; col < GameModel.COLS; col++)
+            bestScore = Integer.MAX_VALUE;
+            for (int index = 0; index < moveCount; index++)
             {
-                if (model.isColumnFull(col))
+                int col = moves[index];
+                
+                play(col, player);
+                int score = minimax(depth - 1, ply + 1, GameModel.RED, alpha, beta, col);
+                unplay(col);
+                
+                if (aborted)
                 {
-                    continue;
+                    return 0;
                 }
                 
-                model.makeMove(col, player);
-                int score = minimax(depth - 1, GameModel.RED, alpha, beta);
-                model.undoMove(col);
-                
-                minScore = Math.min(minScore, score);
+                if (score < bestScore || bestMove == TranspositionTable.NO_MOVE)
+                {
+                    bestScore = score;
+                    bestMove = col;
+                }
                 beta = Math.min(beta, score);
                 if (beta <= alpha)
                 {
+                    recordCutoff(ply, player, col, depth, index);
                     break;
                 }
             }
-            return minScore;
         }
-    }
-    
-    private int evaluateBoard()
-    {
-        int score = 0;
         
-        // Evaluate all possible 4-in-a-row segments
-        score += evaluateLines();
-        
-        // Center column preference
-        score += evaluateCenterControl();
+        int bound;
+        if (bestScore <= searchAlpha)
+        {
+            bound = TranspositionTable.UPPER_BOUND;
+        }
+        else if (bestScore >= searchBeta)
+        {
+            bound = TranspositionTable.LOWER_BOUND;
+        }
+        else
+        {
+            bound = TranspositionTable.EXACT;
+        }
+        table.store(key, depth, bound, bestScore, mirrorMove(bestMove, mirrored));
         
-        return score;
+        return bestScore;
     }
     
-    private int evaluateLines()
+    // Fills moveBuffers[ply] with the legal columns, best candidates first:
+    // the table or previous-iteration move, then killers, then by history
+    // score, with center-out order breaking ties. In a symmetric position
+    // the columns right of center are left out, as they mirror those left
+    // of it.
+    private int orderMoves(int ply, char player, int firstColumn, boolean symmetric)
     {
-        int score = 0;
+        int[] moves = moveBuffers[ply];
+        int[] scores = moveScores[ply];
+        int[] history = historyScores[playerIndex(player)];
+        int count = 0;
+        if (symmetric && firstColumn > cols - 1 - firstColumn)
+        {
+            firstColumn = cols - 1 - firstColumn;
+        }
         
-        // Check all horizontal, vertical and diagonal lines
-        score += evaluateHorizontal();
-        score += evaluateVertical();
-        score += evaluateDiagonals();
+        for (int i = 0; i < cols; i++)
+        {
+            int col = moveOrdering ? centerOutOrder[i] : i;
+            if (model.isColumnFull(col) || (symmetric && col > cols - 1 - col))
+            {
+                continue;
+            }
+            
+            int score = 0;
+            if (col == firstColumn)
+            {
+                score = TABLE_MOVE_PRIORITY;
+            }
+            else if (moveOrdering)
+            {
+                if (col == killerMoves[ply][0] || col == killerMoves[ply][1])
+                {
+                    score = KILLER_PRIORITY;
+                }
+                else
+                {
+                    score = history[col];
+                }
+            }
+            
+            // Insertion sort; stable, so equal scores keep center-out order
+            int j = count++;
+            while (j > 0 && scores[j - 1] < score)
+            {
+                moves[j] = moves[j - 1];
+                scores[j] = scores[j - 1];
+                j--;
+            }
+            moves[j] = col;
+            scores[j] = score;
+        }
         
-        return score;
+        return count;
     }
     
-    private int evaluateHorizontal()
+    private void recordCutoff(int ply, char player, int col, int depth, int index)
     {
-        int score = 0;
+        betaCutoffs++;
+        if (index == 0)
+        {
+            firstMoveCutoffs++;
+        }
         
-        for (int row = 0; row < GameModel.ROWS; row++)
+        if (!moveOrdering)
         {
-            for (int col = 0; col <= GameModel.COLS - 4; col++)
+            return;
+        }
+        
+        int[] killers = killerMoves[ply];
+        if (killers[0] != col)
+        {
+            killers[1] = killers[0];
+            killers[0] = col;
+        }
+        
+        int[] history = historyScores[playerIndex(player)];
+        history[col] += depth * depth;
+        if (history[col] >= HISTORY_LIMIT)
+        {
+            for (int i = 0; i < history.length; i++)
             {
-                score += evaluateSegment(row, col, 0, 1);
+                history[i] /= 2;
             }
         }
-        
-        return score;
     }
     
-    private int evaluateVertical()
+    private void resetOrdering()
     {
-        int score = 0;
-        
-        for (int col = 0; col < GameModel.COLS; col++)
+        for (int[] killers : killerMoves)
         {
-            for (int row = 0; row <= GameModel.ROWS - 4; row++)
-            {
-                score += evaluateSegment(row, col, 1, 0);
-            }
+            Arrays.fill(killers, TranspositionTable.NO_MOVE);
         }
-        
+        for (int[] history : historyScores)
+        {
+            Arrays.fill(history, 0);
+        }
+    }
+    
+    private static int playerIndex(char player)
+    {
+        return (player == GameModel.RED) ? 0 : 1;
+    }
+    
+    private long positionKey(char player)
+    {
+        return positionKey(model, player);
+    }
+    
+    // Key of the position as played, used by the opening book and pondering;
+    // the table and the endgame cache may store it under its mirror's key
+    public static long positionKey(GameModel model, char player)
+    {
+        return withSideToMove(model.getPositionKey(), player);
+    }
+    
+    private static long withSideToMove(long key, char player)
+    {
+        return (player == GameModel.BLACK) ? key | BLACK_TO_MOVE : key;
+    }
+    
+    private int mirrorMove(int col, boolean mirrored)
+    {
+        return (mirrored && col != TranspositionTable.NO_MOVE) ? cols - 1 - col : col;
+    }
+    
+    private SolverResult mirrorResult(SolverResult result, boolean mirrored)
+    {
+        if (result == null || !mirrored)
+        {
+            return result;
+        }
+        return new SolverResult(result.getScore(), mirrorMove(result.getBestMove(), true), result.getDistance());
+    }
+    
+    private int evaluateBoard()
+    {
+        return heuristicScore;
+    }
+    
+    // Static evaluation of the model's current position, for benchmarks and tools
+    int evaluate()
+    {
+        loadPosition();
+        return evaluateBoard();
+    }
+    
+    // Evaluation after the move, kept up to date incrementally the way the
+    // search does, then taken back. Needs the position loaded by evaluate()
+    // first; for benchmarks.
+    int evaluateMove(int col, char player)
+    {
+        play(col, player);
+        int score = evaluateBoard();
+        unplay(col);
         return score;
     }
     
-    private int evaluateDiagonals()
+    private void loadPosition()
     {
-        int score = 0;
+        Arrays.fill(windowRedCounts, 0);
+        Arrays.fill(windowBlackCounts, 0);
+        heuristicScore = 0;
         
-        // Top-left to bottom-right
-        for (int row = 0; row <= GameModel.ROWS - 4; row++)
+        for (int row = 0; row < model.getRows(); row++)
         {
-            for (int col = 0; col <= GameModel.COLS - 4; col++)
+            for (int col = 0; col < cols; col++)
             {
-                score += evaluateSegment(row, col, 1, 1);
+                char cell = model.getCell(row, col);
+                if (cell != GameModel.EMPTY)
+                {
+                    addDisc(row, col, cell);
+                }
             }
         }
-        
-        // Bottom-left to top-right
-        for (int row = 3; row < GameModel.ROWS; row++)
+    }
+    
+    private void play(int col, char player)
+    {
+        int row = model.getFirstAvailableRow(col);
+        model.makeMove(col, player);
+        addDisc(row, col, player);
+    }
+    
+    private void unplay(int col)
+    {
+        int row = model.getFirstAvailableRow(col) + 1;
+        removeDisc(row, col, model.getCell(row, col));
+        model.undoMove(col);
+    }
+    
+    private void addDisc(int row, int col, char player)
+    {
+        int[] counts = (player == GameModel.RED) ? windowRedCounts : windowBlackCounts;
+        for (int window : cellWindows[row * cols + col])
         {
-            for (int col = 0; col <= GameModel.COLS - 4; col++)
-            {
-                score += evaluateSegment(row, col, -1, 1);
-            }
+            heuristicScore -= evaluateCounts(windowRedCounts[window], windowBlackCounts[window]);
+            counts[window]++;
+            heuristicScore += evaluateCounts(windowRedCounts[window], windowBlackCounts[window]);
         }
-        
-        return score;
+        heuristicScore += centerControl(col, player);
     }
     
-    private int evaluateSegment(int row, int col, int rowStep, int colStep)
+    private void removeDisc(int row, int col, char player)
     {
-        int redCount = 0;
-        int blackCount = 0;
-        char[][] board = model.getBoardState();
-        
-        for (int i = 0; i < 4; i++)
+        int[] counts = (player == GameModel.RED) ? windowRedCounts : windowBlackCounts;
+        for (int window : cellWindows[row * cols + col])
         {
-            char cell = board[row + i * rowStep][col + i * colStep];
-            if (cell == GameModel.RED)
-            {
-                redCount++;
-            }
-            else if (cell == GameModel.BLACK)
-            {
-                blackCount++;
-            }
+            heuristicScore -= evaluateCounts(windowRedCounts[window], windowBlackCounts[window]);
+            counts[window]--;
+            heuristicScore += evaluateCounts(windowRedCounts[window], windowBlackCounts[window]);
         }
-        
-        return evaluateCounts(redCount, blackCount);
+        heuristicScore -= centerControl(col, player);
     }
     
     private int evaluateCounts(int redCount, int blackCount)
@@ -219,41 +1065,67 @@ public class AIEngine
         
         if (redCount > 0)
         {
-            return SCORE_TABLE[redCount];
+            return windowScores[redCount];
         }
         
         if (blackCount > 0)
         {
-            return -SCORE_TABLE[blackCount];
+            return -windowScores[blackCount];
         }
         
         return 0;
     }
     
-    private int evaluateCenterControl()
+    // Center column preference
+    private int centerControl(int col, char player)
     {
-        int centerCol = GameModel.COLS / 2;
-        int score = 0;
-        char[][] board = model.getBoardState();
-        
-        for (int row = 0; row < GameModel.ROWS; row++)
+        if (col != cols / 2)
         {
-            char cell = board[row][centerCol];
-            if (cell == GameModel.RED)
-            {
-                score += 2;
-            }
-            else if (cell == GameModel.BLACK)
-            {
-                score -= 2;
-            }
+            return 0;
         }
-        
-        return score;
+        return (player == GameModel.RED) ? 2 : -2;
     }
     
     public int getNodesEvaluated()
     {
         return nodesEvaluated;
     }
+    
+    // Nodes searched so far by the main thread, safe to read while searching
+    public int getSearchProgress()
+    {
+        return searchProgress;
+    }
+    
+    // Score of the last findBestMove's deepest completed iteration from red's
+    // side, where Integer.MAX_VALUE and MIN_VALUE are forced wins for red and
+    // black. Zero when no iteration completed, as getDepthReached then
+    // tells, or the move came from the book, pondering or the solver.
+    public int getSearchScore()
+    {
+        return rootScore;
+    }
+    
+    // Exact value behind the last findBestMove, or null if it was not solved
+    public SolverResult getSolverResult()
+    {
+        return solverResult;
+    }
+    
+    // True when the last findBestMove was answered from pondering
+    public boolean isPonderHit()
+    {
+        return ponderHit;
+    }
+    
+    public int getDepthReached()
+    {
+        return depthReached;
+    }
+    
+    // Counters from the last findBestMove, or null before the first one
+    public SearchStats getSearchStats()
+    {
+        return searchStats;
+    }
 }
\ No newline at end of file
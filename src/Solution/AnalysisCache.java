@@ -0,0 +1,252 @@
+package Solution;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// A transposition table that outlives the process: snapshotted to disk on
+// shutdown and warmed from the snapshot on the next start.
+//
+// Each difficulty level has its own table and snapshot, the configured path
+// with the level appended. Deep entries from a strong level would otherwise
+// cut off a weak level's searches and make it play stronger, by an amount
+// that depends on earlier sessions.
+//
+// The snapshot is a header (magic, version, level, rows, cols, connect, byte
+// order, table size, segment size as ints), a CRC-32C per table segment,
+// then the table's slots exactly as they sit in memory. Each slot also carries its
+// own check, the key XORed with the entry, so a slot torn by a search
+// running during the snapshot reads as a miss.
+//
+// Startup never waits for the snapshot. A daemon thread maps the file and
+// copies it into the table one segment at a time, skipping segments whose
+// checksum fails and slots that searches have filled in the meantime. A
+// snapshot from a table of another size or board is ignored and replaced
+// on the next shutdown. The snapshot is written to a temporary file and
+// moved into place, so a crash while saving leaves the old one intact;
+// a process that is killed outright saves nothing.
+public final class AnalysisCache
+{
+    private static final int MAGIC = 0x43344143;
+    // Version 2 widened the depth and move fields of table entries, version
+    // 3 added the difficulty level
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 9 * Integer.BYTES;
+    private static final int COPY_BUFFER_SIZE = 1 << 20;
+    private static final int LITTLE_ENDIAN = 1;
+    private static final int BIG_ENDIAN = 2;
+    
+    private static final Map<Path, AnalysisCache> shared = new HashMap<>();
+    
+    private final Path path;
+    private final int level;
+    private final TranspositionTable table;
+    private final Thread warmer;
+    private volatile long warmedSlots;
+    
+    private AnalysisCache(Path path, int level, TranspositionTable table)
+    {
+        this.path = path;
+        this.level = level;
+        this.table = table;
+        this.warmer = new Thread(this::warm, "AnalysisCache warmer");
+        warmer.setDaemon(true);
+    }
+    
+    // The cache for the configured path and difficulty level, created and
+    // warmed on first use and shared by every engine of that level that asks
+    // for the same file. Standard board only; the first caller's table size
+    // wins.
+    public static synchronized AnalysisCache getShared(GameConfig config)
+    {
+        if (!config.isStandardBoard())
+        {
+            throw new IllegalArgumentException("The analysis cache only covers the standard board");
+        }
+        
+        Path base = Paths.get(config.getAnalysisCachePath()).toAbsolutePath().normalize();
+        Path key = base.resolveSibling(base.getFileName() + "." + config.getDifficultyLevel());
+        AnalysisCache cache = shared.get(key);
+        if (cache == null)
+        {
+            TranspositionTable table = (config.getSharedTableMemory() > 0)
+                ? TranspositionTable.withMemoryLimit(config.getSharedTableMemory())
+                : new TranspositionTable(config.getTranspositionTableSize());
+            cache = new AnalysisCache(key, config.getDifficultyLevel(), table);
+            shared.put(key, cache);
+            cache.warmer.start();
+            AnalysisCache saved = cache;
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+            {
+                try
+                {
+                    saved.save();
+                }
+                catch (IOException e)
+                {
+                    // The previous snapshot, if any, is still in place
+                }
+            }));
+        }
+        return cache;
+    }
+    
+    public TranspositionTable getTable()
+    {
+        return table;
+    }
+    
+    // Slots copied from the snapshot so far
+    public long getWarmedSlots()
+    {
+        return warmedSlots;
+    }
+    
+    public boolean isWarm()
+    {
+        return !warmer.isAlive();
+    }
+    
+    public void awaitWarm() throws InterruptedException
+    {
+        warmer.join();
+    }
+    
+    private void warm()
+    {
+        if (!Files.isRegularFile(path))
+        {
+            return;
+        }
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            int segments = table.getSegmentCount();
+            long segmentBytes = table.getSegmentBytes();
+            long dataOffset = HEADER_SIZE + (long)segments * Integer.BYTES;
+            if (channel.size() != dataOffset + segments * segmentBytes)
+            {
+                return;
+            }
+            
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, dataOffset);
+            if (header.getInt() != MAGIC ||
+                header.getInt() != VERSION ||
+                header.getInt() != level ||
+                header.getInt() != GameModel.ROWS ||
+                header.getInt() != GameModel.COLS ||
+                header.getInt() != GameModel.CONNECT ||
+                header.getInt() != nativeOrderCode() ||
+                header.getInt() != table.size() ||
+                header.getInt() != segmentBytes)
+            {
+                return;
+            }
+            
+            CRC32C crc = new CRC32C();
+            for (int i = 0; i < segments; i++)
+            {
+                MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                        dataOffset + i * segmentBytes, segmentBytes);
+                crc.reset();
+                crc.update(snapshot);
+                if ((int)crc.getValue() == header.getInt(HEADER_SIZE + i * Integer.BYTES))
+                {
+                    snapshot.order(ByteOrder.nativeOrder());
+                    warmedSlots += table.warmSegment(i, snapshot);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // Start cold; the next shutdown writes a fresh snapshot
+        }
+    }
+    
+    // Waits for warming to finish, so segments not yet copied are not lost,
+    // then writes the whole table
+    public void save() throws IOException
+    {
+        try
+        {
+            warmer.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        
+        int segments = table.getSegmentCount();
+        int segmentBytes = table.getSegmentBytes();
+        long dataOffset = HEADER_SIZE + (long)segments * Integer.BYTES;
+        ByteBuffer header = ByteBuffer.allocate((int)dataOffset);
+        header.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(level)
+              .putInt(GameModel.ROWS)
+              .putInt(GameModel.COLS)
+              .putInt(GameModel.CONNECT)
+              .putInt(nativeOrderCode())
+              .putInt(table.size())
+              .putInt(segmentBytes);
+        
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            // Each chunk is copied before it is checksummed and written, so
+            // the checksum matches the bytes on disk even while searches run
+            ByteBuffer chunk = ByteBuffer.allocateDirect(Math.min(COPY_BUFFER_SIZE, segmentBytes));
+            CRC32C crc = new CRC32C();
+            long position = dataOffset;
+            for (int i = 0; i < segments; i++)
+            {
+                ByteBuffer segment = table.getSegment(i);
+                crc.reset();
+                for (int offset = 0; offset < segmentBytes; offset += chunk.capacity())
+                {
+                    chunk.clear();
+                    chunk.put(segment.slice(offset, chunk.capacity()));
+                    chunk.flip();
+                    crc.update(chunk);
+                    chunk.rewind();
+                    position += writeFully(channel, chunk, position);
+                }
+                header.putInt((int)crc.getValue());
+            }
+            
+            header.flip();
+            writeFully(channel, header, 0);
+            channel.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        int written = 0;
+        while (buffer.hasRemaining())
+        {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+    
+    private static int nativeOrderCode()
+    {
+        return (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) ? LITTLE_ENDIAN : BIG_ENDIAN;
+    }
+}
\ No newline at end of file
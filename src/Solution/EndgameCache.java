@@ -0,0 +1,192 @@
+package Solution;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// Solved positions kept on disk so they survive restarts.
+//
+// The file is a 16-byte header (magic, version, rows, cols) followed by
+// fixed-size records: the position key, then score, best move and distance
+// as single bytes. The whole file is read into memory on open; new results
+// are appended in batches. A torn record at the end, left by a crash, is
+// dropped and overwritten by the next append.
+public final class EndgameCache implements Closeable
+{
+    private static final int MAGIC = 0x43344543;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int RECORD_SIZE = Long.BYTES + 3;
+    private static final int BATCH_RECORDS = 256;
+    
+    private final FileChannel channel;
+    private final Map<Long, SolverResult> entries = new HashMap<>();
+    private final ByteBuffer pending = ByteBuffer.allocate(BATCH_RECORDS * RECORD_SIZE);
+    private boolean writeFailed;
+    
+    private EndgameCache(FileChannel channel)
+    {
+        this.channel = channel;
+    }
+    
+    public static EndgameCache open(Path path) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, 
+                                               StandardOpenOption.CREATE, 
+                                               StandardOpenOption.READ, 
+                                               StandardOpenOption.WRITE);
+        try
+        {
+            EndgameCache cache = new EndgameCache(channel);
+            cache.load();
+            return cache;
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private void load() throws IOException
+    {
+        if (channel.size() == 0)
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(GameModel.ROWS).putInt(GameModel.COLS).flip();
+            writeFully(header, 0);
+            return;
+        }
+        
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || 
+            header.getInt() != MAGIC || 
+            header.getInt() != VERSION || 
+            header.getInt() != GameModel.ROWS || 
+            header.getInt() != GameModel.COLS)
+        {
+            throw new IOException("Not an endgame cache for this board");
+        }
+        
+        long records = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(BATCH_RECORDS * 64 * RECORD_SIZE);
+        long position = HEADER_SIZE;
+        long end = HEADER_SIZE + records * RECORD_SIZE;
+        
+        while (position < end)
+        {
+            buffer.clear();
+            buffer.limit((int)Math.min(buffer.capacity(), end - position));
+            readFully(buffer, position);
+            buffer.flip();
+            position += buffer.remaining();
+            
+            while (buffer.remaining() >= RECORD_SIZE)
+            {
+                long key = buffer.getLong();
+                entries.put(key, new SolverResult(buffer.get(), buffer.get(), buffer.get()));
+            }
+        }
+        
+        channel.position(end);
+    }
+    
+    public synchronized SolverResult get(long key)
+    {
+        return entries.get(key);
+    }
+    
+    public synchronized void put(long key, SolverResult result)
+    {
+        if (entries.putIfAbsent(key, result) != null)
+        {
+            return;
+        }
+        
+        pending.putLong(key)
+               .put((byte)result.getScore())
+               .put((byte)result.getBestMove())
+               .put((byte)result.getDistance());
+        if (!pending.hasRemaining())
+        {
+            flushQuietly();
+        }
+    }
+    
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+    
+    public synchronized void flush() throws IOException
+    {
+        pending.flip();
+        try
+        {
+            if (!writeFailed)
+            {
+                while (pending.hasRemaining())
+                {
+                    channel.write(pending);
+                }
+            }
+        }
+        finally
+        {
+            pending.clear();
+        }
+    }
+    
+    // A failed write only costs persistence; lookups keep working from memory
+    private void flushQuietly()
+    {
+        try
+        {
+            flush();
+        }
+        catch (IOException e)
+        {
+            writeFailed = true;
+        }
+    }
+    
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                break;
+            }
+        }
+    }
+    
+    private void writeFully(ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer, position + buffer.position());
+        }
+        channel.position(position + buffer.position());
+    }
+}
\ No newline at end of file
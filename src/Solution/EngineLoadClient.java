@@ -0,0 +1,194 @@
+package Solution;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load generator for EngineServer: opens many sessions at once, each on a
+// virtual thread, and plays whole games in which the client makes random
+// moves and the server replies. Reports GO latency as seen by the client,
+// throughput and how often the server shed load.
+//
+// Usage: EngineLoadClient [--host H] [--port N] [--sessions N] [--games N]
+//                         [--level L] [--seed N]
+public final class EngineLoadClient
+{
+    private final String host;
+    private final int port;
+    private final int level;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder busyReplies = new LongAdder();
+    
+    public EngineLoadClient(String host, int port, int level)
+    {
+        this.host = host;
+        this.port = port;
+        this.level = level;
+    }
+    
+    public static void main(String[] args) throws InterruptedException
+    {
+        String host = "localhost";
+        int port = EngineServer.DEFAULT_PORT;
+        int sessions = 100;
+        int gamesPerSession = 5;
+        int level = EngineServer.DEFAULT_LEVEL;
+        long seed = System.nanoTime();
+        
+        if (args.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("Missing value for " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2)
+        {
+            String value = args[i + 1];
+            switch (args[i])
+            {
+                case "--host": host = value; break;
+                case "--port": port = Integer.parseInt(value); break;
+                case "--sessions": sessions = Integer.parseInt(value); break;
+                case "--games": gamesPerSession = Integer.parseInt(value); break;
+                case "--level": level = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        
+        EngineLoadClient client = new EngineLoadClient(host, port, level);
+        long start = System.nanoTime();
+        int failed = client.run(sessions, gamesPerSession, seed);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        
+        System.out.printf("%d sessions, %d games, %d failed sessions in %.1f s%n",
+                          sessions, client.games.sum(), failed, seconds);
+        System.out.printf("GO: %s%n", client.latency);
+        System.out.printf("%.1f moves/s, %.1f games/s, %d busy replies%n",
+                          client.latency.getCount() / seconds,
+                          client.games.sum() / seconds,
+                          client.busyReplies.sum());
+    }
+    
+    // Returns the number of sessions that ended in an error
+    public int run(int sessions, int gamesPerSession, long seed) throws InterruptedException
+    {
+        int failed = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < sessions; i++)
+            {
+                SplittableRandom random = new SplittableRandom(seed + i);
+                running.add(executor.submit(() ->
+                {
+                    playSession(gamesPerSession, random);
+                    return null;
+                }));
+            }
+            for (Future<?> session : running)
+            {
+                try
+                {
+                    session.get();
+                }
+                catch (ExecutionException e)
+                {
+                    failed++;
+                }
+            }
+        }
+        return failed;
+    }
+    
+    private void playSession(int gamesPerSession, SplittableRandom random) throws IOException
+    {
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(
+                 new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(
+                 new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)))
+        {
+            socket.setTcpNoDelay(true);
+            GameModel model = new GameModel();
+            for (int game = 0; game < gamesPerSession; game++)
+            {
+                expect(request(in, out, "NEW " + level), "OK");
+                model.reset();
+                playGame(in, out, model, random);
+                games.increment();
+            }
+            expect(request(in, out, "QUIT"), "BYE");
+        }
+    }
+    
+    // The client plays red at random; the server answers every move
+    private void playGame(BufferedReader in, PrintWriter out, GameModel model,
+                          SplittableRandom random) throws IOException
+    {
+        while (true)
+        {
+            int col;
+            do
+            {
+                col = random.nextInt(GameModel.COLS);
+            }
+            while (model.isColumnFull(col));
+            
+            model.makeMove(col, GameModel.RED);
+            if (!request(in, out, "PLAY " + col).equals("OK"))
+            {
+                return;
+            }
+            
+            String reply;
+            long start = System.nanoTime();
+            while ((reply = request(in, out, "GO")).equals("BUSY"))
+            {
+                busyReplies.increment();
+                start = System.nanoTime();
+            }
+            latency.record(System.nanoTime() - start);
+            
+            String[] words = reply.split(" ");
+            expect(words[0], "MOVE");
+            model.makeMove(Integer.parseInt(words[1]), GameModel.BLACK);
+            if (!words[2].equals("OK"))
+            {
+                return;
+            }
+        }
+    }
+    
+    private static String request(BufferedReader in, PrintWriter out, String command) throws IOException
+    {
+        out.print(command);
+        out.print('\n');
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null)
+        {
+            throw new IOException("Server closed the connection");
+        }
+        return reply;
+    }
+    
+    private static void expect(String reply, String expected) throws IOException
+    {
+        if (!reply.equals(expected))
+        {
+            throw new IOException("Expected " + expected + ", got " + reply);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,420 @@
+package Solution;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Headless server hosting many games over a line-based TCP protocol.
+//
+// Each connection is one session with its own game, served by a virtual
+// thread that spends nearly all its time blocked on the socket. Searches
+// run on a fixed pool of platform threads sized to the CPU, each with its
+// own engines. The engines of each difficulty level search one shared
+// off-heap transposition table of --table-mb, so sessions playing the same
+// openings reuse each other's work while a weak level never takes cutoffs
+// from a strong level's deeper entries. With --analysis-cache these tables
+// are also saved on shutdown and reloaded, in the background, on the next
+// start.
+// At most maxPending searches may be queued or running; a GO that
+// cannot get a slot within the queue timeout is answered BUSY, so an
+// overloaded server sheds work instead of letting latency grow unbounded.
+//
+// Commands, one per line, columns counted from 0:
+//   NEW [level]   start a new game, optionally at another difficulty -> OK
+//   PLAY col      play the side to move                   -> OK | WIN | DRAW
+//   GO            let the engine play the side to move    -> MOVE col OK|WIN|DRAW, or BUSY
+//   BOARD         the board, top row first, rows split by '/'
+//   STATS         this session's GO latency and BUSY count
+//   QUIT          close the session                       -> BYE
+// Anything else, an illegal move or a move after the game ended is answered
+// ERR with a reason.
+//
+// Usage: EngineServer [--port N] [--threads N] [--max-pending N]
+//                     [--queue-timeout MS] [--level L] [--time MS]
+//                     [--table-mb N] [--book FILE] [--analysis-cache FILE]
+public final class EngineServer implements Closeable
+{
+    public static final int DEFAULT_PORT = 4040;
+    public static final int DEFAULT_LEVEL = GameConfig.ADVANCED;
+    public static final long DEFAULT_QUEUE_TIMEOUT = 1000;
+    public static final long DEFAULT_TABLE_MEMORY = 256L << 20;
+    
+    private final ServerSocket serverSocket;
+    private final GameConfig[] configs = new GameConfig[GameConfig.PERFECT + 1];
+    private final int defaultLevel;
+    private final OpeningBook openingBook;
+    private final ExecutorService searchPool;
+    private final ThreadLocal<SearchWorker> workers;
+    private final ExecutorService sessionThreads = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final Semaphore searchPermits;
+    private final long queueTimeoutMillis;
+    
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final LongAdder rejectedMoves = new LongAdder();
+    
+    public EngineServer(int port, GameConfig config, int searchThreads, int maxPending,
+                        long queueTimeoutMillis) throws IOException
+    {
+        if (searchThreads < 1)
+        {
+            throw new IllegalArgumentException("Invalid search thread count");
+        }
+        if (maxPending < searchThreads)
+        {
+            throw new IllegalArgumentException("Pending searches must cover every search thread");
+        }
+        
+        for (int level = GameConfig.BEGINNER; level <= GameConfig.PERFECT; level++)
+        {
+            configs[level] = new GameConfig(GameConfig.COMPUTER_COMPUTER, level);
+            configs[level].setMoveTimeLimit(config.getMoveTimeLimit());
+            configs[level].setSharedTableMemory(config.getSharedTableMemory());
+            configs[level].setAnalysisCachePath(config.getAnalysisCachePath());
+        }
+        this.defaultLevel = config.getDifficultyLevel();
+        this.openingBook = GameController.loadOpeningBook(config);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.searchPermits = new Semaphore(maxPending);
+        this.workers = ThreadLocal.withInitial(SearchWorker::new);
+        this.searchPool = Executors.newFixedThreadPool(searchThreads, task ->
+        {
+            Thread thread = new Thread(task, "EngineServer search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.serverSocket = new ServerSocket(port);
+    }
+    
+    public static void main(String[] args) throws IOException
+    {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxPending = -1;
+        long queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+        int level = DEFAULT_LEVEL;
+        long timeLimit = 0;
+        long tableMemory = DEFAULT_TABLE_MEMORY;
+        String book = GameConfig.DEFAULT_OPENING_BOOK;
+        String analysisCache = null;
+        
+        if (args.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("Missing value for " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2)
+        {
+            String value = args[i + 1];
+            switch (args[i])
+            {
+                case "--port": port = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--max-pending": maxPending = Integer.parseInt(value); break;
+                case "--queue-timeout": queueTimeout = Long.parseLong(value); break;
+                case "--level": level = Integer.parseInt(value); break;
+                case "--time": timeLimit = Long.parseLong(value); break;
+                case "--table-mb": tableMemory = Long.parseLong(value) << 20; break;
+                case "--book": book = value; break;
+                case "--analysis-cache": analysisCache = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        
+        GameConfig config = new GameConfig(GameConfig.COMPUTER_COMPUTER, level);
+        config.setMoveTimeLimit(timeLimit);
+        config.setSharedTableMemory(tableMemory);
+        config.setOpeningBookPath(book);
+        config.setAnalysisCachePath(analysisCache);
+        // Enough queued work to keep every search thread busy while others reply
+        int pending = (maxPending > 0) ? maxPending : threads * 4;
+        
+        try (EngineServer server = new EngineServer(port, config, threads, pending, queueTimeout))
+        {
+            System.out.printf("Listening on port %d, %d search threads, %d pending searches%n",
+                              server.getPort(), threads, pending);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> 
+                System.out.printf("Moves: %s, busy=%d%n", server.getMoveLatency(), server.getRejectedMoves())));
+            server.serve();
+        }
+    }
+    
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+    
+    // Accepts connections until the server is closed
+    public void serve() throws IOException
+    {
+        while (!serverSocket.isClosed())
+        {
+            Socket socket;
+            try
+            {
+                socket = serverSocket.accept();
+            }
+            catch (SocketException e)
+            {
+                // Closed while waiting for a connection
+                return;
+            }
+            socket.setTcpNoDelay(true);
+            openSockets.add(socket);
+            sessionThreads.submit(new Session(socket));
+        }
+    }
+    
+    @Override
+    public void close() throws IOException
+    {
+        serverSocket.close();
+        for (Socket socket : openSockets)
+        {
+            socket.close();
+        }
+        sessionThreads.shutdownNow();
+        searchPool.shutdownNow();
+    }
+    
+    public LatencyHistogram getMoveLatency()
+    {
+        return moveLatency;
+    }
+    
+    public long getRejectedMoves()
+    {
+        return rejectedMoves.sum();
+    }
+    
+    // Engines for one search thread, one per difficulty level
+    private final class SearchWorker
+    {
+        private final GameModel searchModel = new GameModel();
+        private final AIEngine[] engines = new AIEngine[GameConfig.PERFECT + 1];
+        
+        int findBestMove(GameModel position, char player, int level)
+        {
+            if (engines[level] == null)
+            {
+                engines[level] = GameController.createEngine(configs[level], searchModel, openingBook, null);
+            }
+            searchModel.copyFrom(position);
+            return engines[level].findBestMove(player);
+        }
+    }
+    
+    private final class Session implements Runnable
+    {
+        private final Socket socket;
+        private final GameModel model = new GameModel();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private char player = GameModel.RED;
+        private int level = defaultLevel;
+        private boolean gameOver;
+        private int busyReplies;
+        
+        Session(Socket socket)
+        {
+            this.socket = socket;
+        }
+        
+        @Override
+        public void run()
+        {
+            try (BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)))
+            {
+                String line;
+                while ((line = in.readLine()) != null)
+                {
+                    String reply = handle(line.trim());
+                    out.print(reply);
+                    out.print('\n');
+                    out.flush();
+                    if (reply.equals("BYE"))
+                    {
+                        break;
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                // Client went away; nothing to clean up beyond the socket
+            }
+            finally
+            {
+                openSockets.remove(socket);
+                try
+                {
+                    socket.close();
+                }
+                catch (IOException e)
+                {
+                    // Already closed
+                }
+            }
+        }
+        
+        private String handle(String line)
+        {
+            String[] words = line.split("\\s+");
+            try
+            {
+                switch (words[0].toUpperCase())
+                {
+                    case "NEW": return newGame(words);
+                    case "PLAY": return play(parseInt(words, "column"));
+                    case "GO": return go();
+                    case "BOARD": return board();
+                    case "STATS": return "STATS " + latency + " busy=" + busyReplies;
+                    case "QUIT": return "BYE";
+                    default: return "ERR unknown command";
+                }
+            }
+            catch (IllegalArgumentException e)
+            {
+                return "ERR " + e.getMessage();
+            }
+        }
+        
+        private String newGame(String[] words)
+        {
+            if (words.length > 1)
+            {
+                int newLevel = parseInt(words, "level");
+                if (newLevel < GameConfig.BEGINNER || newLevel > GameConfig.PERFECT)
+                {
+                    throw new IllegalArgumentException("Invalid difficulty level");
+                }
+                level = newLevel;
+            }
+            model.reset();
+            player = GameModel.RED;
+            gameOver = false;
+            return "OK";
+        }
+        
+        private String play(int col)
+        {
+            if (gameOver)
+            {
+                throw new IllegalArgumentException("Game is over");
+            }
+            model.makeMove(col, player);
+            return afterMove(col);
+        }
+        
+        private String go()
+        {
+            if (gameOver)
+            {
+                throw new IllegalArgumentException("Game is over");
+            }
+            
+            long start = System.nanoTime();
+            int col;
+            try
+            {
+                if (!searchPermits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS))
+                {
+                    busyReplies++;
+                    rejectedMoves.increment();
+                    return "BUSY";
+                }
+                try
+                {
+                    // The session blocks until the move is back, so the
+                    // worker can read the live model
+                    char side = player;
+                    col = searchPool.submit(() -> workers.get().findBestMove(model, side, level)).get();
+                }
+                finally
+                {
+                    searchPermits.release();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return "ERR server shutting down";
+            }
+            catch (ExecutionException e)
+            {
+                return "ERR search failed";
+            }
+            
+            long elapsed = System.nanoTime() - start;
+            latency.record(elapsed);
+            moveLatency.record(elapsed);
+            model.makeMove(col, player);
+            return "MOVE " + col + " " + afterMove(col);
+        }
+        
+        private String afterMove(int col)
+        {
+            if (model.checkWinnerAt(col) != GameModel.EMPTY)
+            {
+                gameOver = true;
+                return "WIN";
+            }
+            if (model.isBoardFull())
+            {
+                gameOver = true;
+                return "DRAW";
+            }
+            player = (player == GameModel.RED) ? GameModel.BLACK : GameModel.RED;
+            return "OK";
+        }
+        
+        private String board()
+        {
+            StringBuilder board = new StringBuilder(GameModel.ROWS * (GameModel.COLS + 1));
+            for (int row = 0; row < GameModel.ROWS; row++)
+            {
+                if (row > 0)
+                {
+                    board.append('/');
+                }
+                for (int col = 0; col < GameModel.COLS; col++)
+                {
+                    char cell = model.getCell(row, col);
+                    board.append((cell == GameModel.EMPTY) ? '.' : cell);
+                }
+            }
+            return board.toString();
+        }
+        
+        private int parseInt(String[] words, String name)
+        {
+            if (words.length < 2)
+            {
+                throw new IllegalArgumentException("Missing " + name);
+            }
+            try
+            {
+                return Integer.parseInt(words[1]);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IllegalArgumentException("Invalid " + name);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package Solution;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Process-wide totals over every engine's findBestMove calls, registered on
+// the platform MBean server the first time it is used.
+public final class EngineStats implements EngineStatsMXBean
+{
+    public static final String OBJECT_NAME = "Solution:type=EngineStats";
+    
+    private final LongAdder totalNodes = new LongAdder();
+    private final LongAdder betaCutoffs = new LongAdder();
+    private final LongAdder firstMoveCutoffs = new LongAdder();
+    private final LongAdder tableProbes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    
+    private static final class Holder
+    {
+        static final EngineStats INSTANCE = register(new EngineStats());
+    }
+    
+    public static EngineStats getInstance()
+    {
+        return Holder.INSTANCE;
+    }
+    
+    private static EngineStats register(EngineStats stats)
+    {
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats, new ObjectName(OBJECT_NAME));
+        }
+        catch (JMException | SecurityException e)
+        {
+            // Still counts without JMX, e.g. when another copy is already registered
+        }
+        return stats;
+    }
+    
+    EngineStats()
+    {
+    }
+    
+    public void record(SearchStats stats)
+    {
+        totalNodes.add(stats.getNodes());
+        betaCutoffs.add(stats.getBetaCutoffs());
+        firstMoveCutoffs.add(stats.getFirstMoveCutoffs());
+        tableProbes.add(stats.getTableProbes());
+        tableHits.add(stats.getTableHits());
+        latency.record(stats.getElapsedNanos());
+    }
+    
+    @Override
+    public long getSearchCount()
+    {
+        return latency.getCount();
+    }
+    
+    @Override
+    public long getTotalNodes()
+    {
+        return totalNodes.sum();
+    }
+    
+    @Override
+    public long getTotalSearchMillis()
+    {
+        return latency.getTotalNanos() / 1_000_000;
+    }
+    
+    @Override
+    public double getNodesPerSecond()
+    {
+        long nanos = latency.getTotalNanos();
+        return (nanos == 0) ? 0.0 : totalNodes.sum() * 1_000_000_000.0 / nanos;
+    }
+    
+    @Override
+    public long getBetaCutoffs()
+    {
+        return betaCutoffs.sum();
+    }
+    
+    @Override
+    public double getFirstMoveCutoffRate()
+    {
+        long cutoffs = betaCutoffs.sum();
+        return (cutoffs == 0) ? 0.0 : (double)firstMoveCutoffs.sum() / cutoffs;
+    }
+    
+    @Override
+    public double getTableHitRate()
+    {
+        long probes = tableProbes.sum();
+        return (probes == 0) ? 0.0 : (double)tableHits.sum() / probes;
+    }
+    
+    @Override
+    public double getLatencyMeanMillis()
+    {
+        return latency.getMeanMillis();
+    }
+    
+    @Override
+    public double getLatencyP50Millis()
+    {
+        return latency.getPercentileMillis(0.50);
+    }
+    
+    @Override
+    public double getLatencyP90Millis()
+    {
+        return latency.getPercentileMillis(0.90);
+    }
+    
+    @Override
+    public double getLatencyP99Millis()
+    {
+        return latency.getPercentileMillis(0.99);
+    }
+    
+    @Override
+    public double getLatencyMaxMillis()
+    {
+        return latency.getMaxMillis();
+    }
+    
+    @Override
+    public void reset()
+    {
+        totalNodes.reset();
+        betaCutoffs.reset();
+        firstMoveCutoffs.reset();
+        tableProbes.reset();
+        tableHits.reset();
+        latency.reset();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package Solution;
+
+// Management interface for the engine counters published under
+// EngineStats.OBJECT_NAME. Totals cover every findBestMove since start-up
+// or the last reset; latencies are per move, in milliseconds.
+public interface EngineStatsMXBean
+{
+    long getSearchCount();
+    
+    long getTotalNodes();
+    
+    long getTotalSearchMillis();
+    
+    double getNodesPerSecond();
+    
+    long getBetaCutoffs();
+    
+    double getFirstMoveCutoffRate();
+    
+    double getTableHitRate();
+    
+    double getLatencyMeanMillis();
+    
+    double getLatencyP50Millis();
+    
+    double getLatencyP90Millis();
+    
+    double getLatencyP99Millis();
+    
+    double getLatencyMaxMillis();
+    
+    void reset();
+}
\ No newline at end of file
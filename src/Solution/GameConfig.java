@@ -11,10 +11,33 @@ public final class GameConfig
         BEGINNER = 1,
         INTERMEDIATE = 2,
         ADVANCED = 3,
-        EXPERT = 4;
+        EXPERT = 4,
+        PERFECT = 5;
+    
+    public static final int DEFAULT_TRANSPOSITION_TABLE_SIZE = 1 << 20;
+    public static final String DEFAULT_OPENING_BOOK = "connect-four.book";
+    public static final long DEFAULT_SOLVER_TIME_LIMIT = 3000;
+    public static final int DEFAULT_ENDGAME_THRESHOLD = 16;
+    public static final String DEFAULT_ENDGAME_CACHE = "connect-four.endgame";
+    public static final String DEFAULT_GAME_JOURNAL = "connect-four.journal";
+    public static final String DEFAULT_ANALYSIS_CACHE = "connect-four.analysis";
+    public static final long DEFAULT_MOVE_DELAY = 600;
     
     private final int gameType;
     private final int difficultyLevel;
+    private int rows = GameModel.ROWS;
+    private int cols = GameModel.COLS;
+    private int connect = GameModel.CONNECT;
+    private int transpositionTableSize = DEFAULT_TRANSPOSITION_TABLE_SIZE;
+    private long sharedTableMemory;
+    private long moveTimeLimit;
+    private int searchThreads = 1;
+    private long moveDelay = -1;
+    private String openingBookPath = DEFAULT_OPENING_BOOK;
+    private int endgameThreshold = -1;
+    private String endgameCachePath = DEFAULT_ENDGAME_CACHE;
+    private String gameJournalPath = DEFAULT_GAME_JOURNAL;
+    private String analysisCachePath = DEFAULT_ANALYSIS_CACHE;
     
     public GameConfig(int gameType, int difficultyLevel)
     {
@@ -22,7 +45,7 @@ public final class GameConfig
         {
             throw new IllegalArgumentException("Invalid game type");
         }
-        if (difficultyLevel < BEGINNER || difficultyLevel > EXPERT)
+        if (difficultyLevel < BEGINNER || difficultyLevel > PERFECT)
         {
             throw new IllegalArgumentException("Invalid difficulty level");
         }
@@ -43,13 +66,237 @@ public final class GameConfig
     
     public int getMaxDepth()
     {
+        // A timed difficulty deepens until the clock runs out
+        if (moveTimeLimit > 0)
+        {
+            return rows * cols;
+        }
+        
         switch (difficultyLevel)
         {
             case BEGINNER: return 2;
             case INTERMEDIATE: return 4;
             case ADVANCED: return 6;
             case EXPERT: return 8;
+            case PERFECT: return 8;
             default: return 4;
         }
     }
+    
+    // The solver only knows the standard board; elsewhere Perfect searches
+    // like Expert
+    public boolean usesSolver()
+    {
+        return difficultyLevel == PERFECT && isStandardBoard();
+    }
+    
+    // Empty cells at or below which the computer solves exactly instead of
+    // searching; by default only the stronger levels play perfect endgames
+    public int getEndgameThreshold()
+    {
+        if (usesSolver())
+        {
+            return GameModel.ROWS * GameModel.COLS;
+        }
+        if (!isStandardBoard())
+        {
+            return 0;
+        }
+        if (endgameThreshold >= 0)
+        {
+            return endgameThreshold;
+        }
+        return (difficultyLevel >= ADVANCED) ? DEFAULT_ENDGAME_THRESHOLD : 0;
+    }
+    
+    public void setEndgameThreshold(int endgameThreshold)
+    {
+        if (endgameThreshold < 0 || endgameThreshold > GameModel.ROWS * GameModel.COLS)
+        {
+            throw new IllegalArgumentException("Invalid endgame threshold");
+        }
+        
+        this.endgameThreshold = endgameThreshold;
+    }
+    
+    public String getEndgameCachePath()
+    {
+        return endgameCachePath;
+    }
+    
+    // Null keeps solved endgames in memory only
+    public void setEndgameCachePath(String endgameCachePath)
+    {
+        this.endgameCachePath = endgameCachePath;
+    }
+    
+    public String getGameJournalPath()
+    {
+        return gameJournalPath;
+    }
+    
+    // Null keeps no record of finished games
+    public void setGameJournalPath(String gameJournalPath)
+    {
+        this.gameJournalPath = gameJournalPath;
+    }
+    
+    public String getAnalysisCachePath()
+    {
+        return analysisCachePath;
+    }
+    
+    // Each difficulty level snapshots to this path with its level appended.
+    // Null gives every engine a table of its own that starts empty and is
+    // lost on exit.
+    public void setAnalysisCachePath(String analysisCachePath)
+    {
+        this.analysisCachePath = analysisCachePath;
+    }
+    
+    // Time the solver may spend before the move falls back to heuristic
+    // search. A timed move has no separate solver limit: the engine charges
+    // solving against the move's own deadline.
+    public long getSolverTimeLimit()
+    {
+        return (moveTimeLimit > 0) ? 0 : DEFAULT_SOLVER_TIME_LIMIT;
+    }
+    
+    public int getRows()
+    {
+        return rows;
+    }
+    
+    public int getCols()
+    {
+        return cols;
+    }
+    
+    public int getConnect()
+    {
+        return connect;
+    }
+    
+    public boolean isStandardBoard()
+    {
+        return rows == GameModel.ROWS && cols == GameModel.COLS && connect == GameModel.CONNECT;
+    }
+    
+    public void setBoardSize(int rows, int cols, int connect)
+    {
+        if (rows < GameModel.MIN_SIZE || rows > GameModel.MAX_SIZE || 
+            cols < GameModel.MIN_SIZE || cols > GameModel.MAX_SIZE)
+        {
+            throw new IllegalArgumentException("Invalid board size");
+        }
+        if (connect < 3 || connect > Math.max(rows, cols))
+        {
+            throw new IllegalArgumentException("Invalid connect length");
+        }
+        
+        this.rows = rows;
+        this.cols = cols;
+        this.connect = connect;
+    }
+    
+    public GameModel createModel()
+    {
+        return new GameModel(rows, cols, connect);
+    }
+    
+    public int getTranspositionTableSize()
+    {
+        return transpositionTableSize;
+    }
+    
+    public void setTranspositionTableSize(int transpositionTableSize)
+    {
+        if (transpositionTableSize <= 0 || Integer.bitCount(transpositionTableSize) != 1)
+        {
+            throw new IllegalArgumentException("Invalid transposition table size");
+        }
+        
+        this.transpositionTableSize = transpositionTableSize;
+    }
+    
+    public long getSharedTableMemory()
+    {
+        return sharedTableMemory;
+    }
+    
+    // Bytes for the table shared by every engine in the process that asks
+    // for one at this difficulty level; zero gives this game a private table
+    // of the size above
+    public void setSharedTableMemory(long sharedTableMemory)
+    {
+        if (sharedTableMemory < 0)
+        {
+            throw new IllegalArgumentException("Invalid shared table memory");
+        }
+        
+        this.sharedTableMemory = sharedTableMemory;
+    }
+    
+    public long getMoveTimeLimit()
+    {
+        return moveTimeLimit;
+    }
+    
+    // Milliseconds per computer move; zero searches to the fixed difficulty depth
+    public void setMoveTimeLimit(long moveTimeLimit)
+    {
+        if (moveTimeLimit < 0)
+        {
+            throw new IllegalArgumentException("Invalid move time limit");
+        }
+        
+        this.moveTimeLimit = moveTimeLimit;
+    }
+    
+    public int getSearchThreads()
+    {
+        return searchThreads;
+    }
+    
+    public void setSearchThreads(int searchThreads)
+    {
+        if (searchThreads < 1)
+        {
+            throw new IllegalArgumentException("Invalid search thread count");
+        }
+        
+        this.searchThreads = searchThreads;
+    }
+    
+    // Milliseconds from one move to the computer's next at the least; by
+    // default only games between two computers are slowed down to watch
+    public long getMoveDelay()
+    {
+        if (moveDelay >= 0)
+        {
+            return moveDelay;
+        }
+        return (gameType == COMPUTER_COMPUTER) ? DEFAULT_MOVE_DELAY : 0;
+    }
+    
+    public void setMoveDelay(long moveDelay)
+    {
+        if (moveDelay < 0)
+        {
+            throw new IllegalArgumentException("Invalid move delay");
+        }
+        
+        this.moveDelay = moveDelay;
+    }
+    
+    public String getOpeningBookPath()
+    {
+        return openingBookPath;
+    }
+    
+    // Null disables the book; a missing file is treated the same way
+    public void setOpeningBookPath(String openingBookPath)
+    {
+        this.openingBookPath = openingBookPath;
+    }
 }
\ No newline at end of file
@@ -1,11 +1,30 @@
 package Solution;
 
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class GameController
 {
     private final GameModel model;
+    private final GameModel searchModel;
     private final GameConfig config;
+    private AIEngine engine;
+    private EndgameCache endgameCache;
+    private ExecutorService searchExecutor;
+    private volatile int currentSearchId;
+    private boolean thinking;
+    private long searchStartTime;
+    private boolean gameOver;
     private GameView view;
+    private TurnScheduler scheduler;
     private char currentPlayer;
+    private final byte[] moves;
+    private long gameStartMillis;
     private String player1Name = "Player 1";
     private String player2Name = "Player 2";
     private String player1Color = "Red";
@@ -14,13 +33,16 @@ public class GameController
     public GameController(GameConfig config)
     {
         this.config = config;
-        this.model = new GameModel();
+        this.model = config.createModel();
+        this.searchModel = config.createModel();
         this.currentPlayer = GameModel.RED;
+        this.moves = new byte[model.getRows() * model.getCols()];
     }
     
     public void setView(GameView view)
     {
         this.view = view;
+        this.scheduler = new TurnScheduler(this, view, config.getMoveDelay());
     }
     
     public void setPlayerNames(String player1Name, String player2Name)
@@ -55,6 +77,11 @@ public class GameController
         return player2Color;
     }
     
+    public int getGameType()
+    {
+        return config.getGameType();
+    }
+    
     public GameModel getModel()
     {
         return model;
@@ -65,41 +92,138 @@ public class GameController
         return currentPlayer;
     }
     
+    public boolean isThinking()
+    {
+        return thinking;
+    }
+    
+    public long getThinkingMillis()
+    {
+        return thinking ? System.currentTimeMillis() - searchStartTime : 0;
+    }
+    
+    public int getThinkingNodes()
+    {
+        return (thinking && engine != null) ? engine.getSearchProgress() : 0;
+    }
+    
+    // True when the board should accept a click from the human player
+    public boolean isAcceptingInput()
+    {
+        return !thinking && !gameOver && !shouldComputerMove();
+    }
+    
     public void startNewGame()
     {
+        cancelComputerMove();
         model.reset();
         currentPlayer = GameModel.RED;
+        gameOver = false;
+        gameStartMillis = System.currentTimeMillis();
+        scheduler.movePlayed();
         view.updateBoard();
+        
+        if (shouldComputerMove())
+        {
+            startComputerMove();
+        }
+    }
+    
+    // Stops any running search and releases the search thread
+    public void shutdown()
+    {
+        cancelComputerMove();
+        if (searchExecutor != null)
+        {
+            searchExecutor.shutdownNow();
+            searchExecutor = null;
+        }
+        if (engine != null)
+        {
+            engine.shutdown();
+        }
+        if (endgameCache != null)
+        {
+            try
+            {
+                endgameCache.close();
+            }
+            catch (IOException e)
+            {
+                // Only the unsaved tail of this session's endgames is lost
+            }
+            endgameCache = null;
+        }
     }
     
     public void makeMove(int column)
     {
-        if (model.isColumnFull(column))
+        if (!isAcceptingInput() || model.isColumnFull(column))
         {
             return;
         }
         
+        playMove(column);
+    }
+    
+    private void playMove(int column)
+    {
         model.makeMove(column, currentPlayer);
-        view.updateBoard();
+        moves[model.getMoveCount() - 1] = (byte)column;
+        scheduler.movePlayed();
         
-        char winner = model.checkWinner();
+        char winner = model.checkWinnerAt(column);
         if (winner != GameModel.EMPTY)
         {
+            gameOver = true;
+            recordGame(winner);
+            view.updateBoard();
             view.showWinner(winner);
             return;
         }
         
         if (model.isBoardFull())
         {
+            gameOver = true;
+            recordGame(GameModel.EMPTY);
+            view.updateBoard();
             view.showTie();
             return;
         }
         
         switchPlayer();
+        view.updateBoard();
         
         if (shouldComputerMove())
         {
-            makeComputerMove();
+            startComputerMove();
+        }
+        else if (config.getGameType() != GameConfig.HUMAN_HUMAN)
+        {
+            startPondering();
+        }
+    }
+    
+    // Appends the finished game to the journal and hands it to the operating
+    // system; forcing it to disk is left to the journal's batching
+    private void recordGame(char winner)
+    {
+        if (config.getGameJournalPath() == null)
+        {
+            return;
+        }
+        
+        try
+        {
+            GameJournal journal = GameJournal.getShared(Paths.get(config.getGameJournalPath()));
+            journal.append(new GameRecord(config, player1Name, player2Name, winner, gameStartMillis,
+                                          System.currentTimeMillis() - gameStartMillis,
+                                          moves, model.getMoveCount()));
+            journal.flush();
+        }
+        catch (IOException e)
+        {
+            // The journal is only an archive; the game itself is unaffected
         }
     }
     
@@ -116,15 +240,213 @@ public class GameController
                (gameType == GameConfig.COMPUTER_COMPUTER);
     }
     
-    private void makeComputerMove()
+    // Searches a copy of the board on the search thread so the view can keep
+    // painting the real one, then plays the result back on the EDT
+    private void startComputerMove()
+    {
+        AIEngine searchEngine = getEngine();
+        GameModel position = new GameModel(model);
+        
+        // Ends any pondering; the search queues behind it on the same thread
+        searchEngine.stop();
+        
+        char player = currentPlayer;
+        int searchId = ++currentSearchId;
+        thinking = true;
+        searchStartTime = System.currentTimeMillis();
+        view.showThinking();
+        
+        searchExecutor.submit(() -> 
+        {
+            if (searchId != currentSearchId)
+            {
+                return;
+            }
+            searchModel.copyFrom(position);
+            int column = searchEngine.findBestMove(player);
+            SwingUtilities.invokeLater(() -> searchFinished(searchId, column));
+        });
+    }
+    
+    // Lets the engine search likely replies while the human decides
+    private void startPondering()
+    {
+        AIEngine searchEngine = getEngine();
+        GameModel position = new GameModel(model);
+        char human = currentPlayer;
+        int searchId = ++currentSearchId;
+        
+        searchExecutor.submit(() -> 
+        {
+            if (searchId != currentSearchId)
+            {
+                return;
+            }
+            searchModel.copyFrom(position);
+            searchEngine.ponder(human);
+        });
+    }
+    
+    // The scheduler decides when the move is played
+    private void searchFinished(int searchId, int column)
     {
-        int column = findBestMove();
-        makeMove(column);
+        // A newer game or a shutdown has made this result stale
+        if (searchId != currentSearchId)
+        {
+            return;
+        }
+        
+        thinking = false;
+        view.updateBoard();
+        scheduler.moveFound(searchId, column);
     }
     
-    private int findBestMove()
+    void finishComputerMove(int searchId, int column)
     {
-        AIEngine engine = new AIEngine(model, config.getMaxDepth());
-        return engine.findBestMove(currentPlayer);
+        if (searchId == currentSearchId)
+        {
+            playMove(column);
+        }
+    }
+    
+    public boolean isPaused()
+    {
+        return scheduler.isPaused();
+    }
+    
+    // Holds the computer's moves until resumed or stepped
+    public void pause()
+    {
+        scheduler.pause();
+        view.updateBoard();
+    }
+    
+    public void resume()
+    {
+        scheduler.resume();
+        view.updateBoard();
+    }
+    
+    public void step()
+    {
+        scheduler.step();
+    }
+    
+    private void cancelComputerMove()
+    {
+        currentSearchId++;
+        thinking = false;
+        scheduler.cancel();
+        if (engine != null)
+        {
+            engine.stop();
+        }
+    }
+    
+    private AIEngine getEngine()
+    {
+        // Kept for the whole game so the table carries over between moves
+        if (engine == null)
+        {
+            if (config.getEndgameThreshold() > 0)
+            {
+                endgameCache = openEndgameCache();
+            }
+            engine = createEngine(config, searchModel, loadOpeningBook(config), endgameCache);
+        }
+        if (searchExecutor == null)
+        {
+            searchExecutor = Executors.newSingleThreadExecutor(task -> 
+            {
+                Thread thread = new Thread(task, "AIEngine search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return engine;
+    }
+    
+    // Builds an engine for the configured difficulty, searching the given model
+    static AIEngine createEngine(GameConfig config, GameModel model, OpeningBook openingBook, 
+                                 EndgameCache endgameCache)
+    {
+        TranspositionTable table;
+        if (config.getAnalysisCachePath() != null && config.isStandardBoard())
+        {
+            table = AnalysisCache.getShared(config).getTable();
+        }
+        else if (config.getSharedTableMemory() > 0)
+        {
+            table = TranspositionTable.getShared(config.getDifficultyLevel(), config.getSharedTableMemory());
+        }
+        else
+        {
+            table = new TranspositionTable(config.getTranspositionTableSize());
+        }
+        return createEngine(config, model, openingBook, endgameCache, table);
+    }
+    
+    // For callers that manage the table themselves
+    static AIEngine createEngine(GameConfig config, GameModel model, OpeningBook openingBook, 
+                                 EndgameCache endgameCache, TranspositionTable table)
+    {
+        AIEngine engine = new AIEngine(model, config.getMaxDepth(), table);
+        engine.setTimeLimit(config.getMoveTimeLimit());
+        engine.setThreads(config.getSearchThreads());
+        engine.setOpeningBook(openingBook);
+        if (config.getEndgameThreshold() > 0)
+        {
+            // Endgames need far fewer table entries than full solves
+            Solver solver = config.usesSolver() ? new Solver() : new Solver(Solver.ENDGAME_TABLE_SIZE);
+            // Zero for timed moves, where the engine lends the solver part
+            // of the move's time instead of adding to it
+            solver.setTimeLimit(config.getSolverTimeLimit());
+            engine.setSolver(solver, config.getEndgameThreshold());
+            engine.setEndgameCache(endgameCache);
+        }
+        return engine;
+    }
+    
+    static OpeningBook loadOpeningBook(GameConfig config)
+    {
+        // The book only covers the standard board
+        if (config.getOpeningBookPath() == null || !config.isStandardBoard())
+        {
+            return null;
+        }
+        
+        Path path = Paths.get(config.getOpeningBookPath());
+        if (!Files.isRegularFile(path))
+        {
+            return null;
+        }
+        
+        try
+        {
+            return OpeningBook.open(path);
+        }
+        catch (IOException e)
+        {
+            // The book only saves time; play on without it
+            return null;
+        }
+    }
+    
+    private EndgameCache openEndgameCache()
+    {
+        if (config.getEndgameCachePath() == null)
+        {
+            return null;
+        }
+        
+        try
+        {
+            return EndgameCache.open(Paths.get(config.getEndgameCachePath()));
+        }
+        catch (IOException e)
+        {
+            // Solve without persisting, as if no cache were configured
+            return null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,470 @@
+package Solution;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Append-only archive of finished games.
+//
+// The file is an 8-byte header (magic, version) followed by one record per
+// game: a 2-byte body length, the body and a CRC-32C of the body. The body
+// holds the board size, game type, difficulty, result, start time and
+// duration, the move count, both player names as length-prefixed UTF-8 and
+// the moves packed two to a byte, first move in the low nibble. A game of
+// 30 moves takes 43 bytes plus the players' names.
+//
+// Records are collected in a buffer and written when it fills, on flush()
+// or every syncBatch records; the file is forced to disk only at those
+// batch boundaries and on close. A record torn by a crash fails its length
+// or checksum test; reading stops there and the next open cuts it off. Only
+// the last record can be torn: a bad one with more of the file after it is
+// corruption, and reading or opening the file fails rather than lose the
+// games behind it.
+//
+// An open journal holds an exclusive lock on its file, so a second process
+// appending to it, as two games started from the same directory would, fails
+// to open it instead of interleaving records.
+//
+// Usage: GameJournal FILE [--replay]
+public final class GameJournal implements Closeable
+{
+    public static final int DEFAULT_SYNC_BATCH = 64;
+    
+    private static final int MAGIC = 0x43344A4C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int FIXED_BODY_SIZE = 6 + Long.BYTES + Integer.BYTES + Short.BYTES;
+    private static final int MAX_NAME_BYTES = 255;
+    private static final int MAX_BODY_SIZE = FIXED_BODY_SIZE + 2 * (1 + MAX_NAME_BYTES)
+                                             + (GameModel.MAX_SIZE * GameModel.MAX_SIZE + 1) / 2;
+    private static final int MAX_RECORD_SIZE = Short.BYTES + MAX_BODY_SIZE + Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    
+    private static final Map<Path, GameJournal> shared = new HashMap<>();
+    
+    private final FileChannel channel;
+    private final int syncBatch;
+    private final ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private int unsynced;
+    private long records;
+    
+    private GameJournal(FileChannel channel, int syncBatch)
+    {
+        this.channel = channel;
+        this.syncBatch = syncBatch;
+    }
+    
+    public static GameJournal open(Path path) throws IOException
+    {
+        return open(path, DEFAULT_SYNC_BATCH);
+    }
+    
+    public static GameJournal open(Path path, int syncBatch) throws IOException
+    {
+        if (syncBatch < 1)
+        {
+            throw new IllegalArgumentException("Invalid sync batch");
+        }
+        
+        FileChannel channel = FileChannel.open(path,
+                                               StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try
+        {
+            lock(channel, path);
+            GameJournal journal = new GameJournal(channel, syncBatch);
+            journal.load();
+            return journal;
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    // Released when the channel closes
+    private static void lock(FileChannel channel, Path path) throws IOException
+    {
+        FileLock lock;
+        try
+        {
+            lock = channel.tryLock();
+        }
+        catch (OverlappingFileLockException e)
+        {
+            lock = null;
+        }
+        if (lock == null)
+        {
+            throw new IOException("Game journal " + path + " is already open");
+        }
+    }
+    
+    // One journal per file for the whole process, closed on exit, so games
+    // from every window land in the same file without reopening it
+    public static synchronized GameJournal getShared(Path path) throws IOException
+    {
+        Path key = path.toAbsolutePath().normalize();
+        GameJournal journal = shared.get(key);
+        if (journal == null)
+        {
+            journal = open(key);
+            shared.put(key, journal);
+            GameJournal opened = journal;
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+            {
+                try
+                {
+                    opened.close();
+                }
+                catch (IOException e)
+                {
+                    // Nothing left to do on the way out
+                }
+            }));
+        }
+        return journal;
+    }
+    
+    private void load() throws IOException
+    {
+        if (channel.size() == 0)
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining())
+            {
+                channel.write(header, header.position());
+            }
+            channel.position(HEADER_SIZE);
+            return;
+        }
+        
+        checkHeader(channel);
+        long[] count = new long[1];
+        long end = scan(channel, null, count);
+        if (end < channel.size())
+        {
+            channel.truncate(end);
+        }
+        channel.position(end);
+        records = count[0];
+    }
+    
+    public synchronized void append(GameRecord game) throws IOException
+    {
+        record.clear();
+        record.position(Short.BYTES);
+        record.put((byte)game.getRows())
+              .put((byte)game.getCols())
+              .put((byte)game.getConnect())
+              .put((byte)game.getGameType())
+              .put((byte)game.getDifficultyLevel())
+              .put(encodeWinner(game.getWinner()))
+              .putLong(game.getStartMillis())
+              .putInt((int)Math.min(game.getDurationMillis(), Integer.MAX_VALUE))
+              .putShort((short)game.getMoveCount());
+        putName(game.getPlayer1Name());
+        putName(game.getPlayer2Name());
+        for (int i = 0; i < game.getMoveCount(); i += 2)
+        {
+            int low = game.getMove(i);
+            int high = (i + 1 < game.getMoveCount()) ? game.getMove(i + 1) : 0;
+            record.put((byte)(low | high << 4));
+        }
+        
+        int bodySize = record.position() - Short.BYTES;
+        crc.reset();
+        crc.update(record.array(), Short.BYTES, bodySize);
+        record.putShort(0, (short)bodySize).putInt((int)crc.getValue()).flip();
+        
+        if (pending.remaining() < record.remaining())
+        {
+            write();
+        }
+        pending.put(record);
+        records++;
+        if (++unsynced >= syncBatch)
+        {
+            sync();
+        }
+    }
+    
+    // Hands buffered records to the operating system without forcing them
+    // to disk; they survive the process dying but not the machine
+    public synchronized void flush() throws IOException
+    {
+        write();
+    }
+    
+    public synchronized void sync() throws IOException
+    {
+        write();
+        channel.force(false);
+        unsynced = 0;
+    }
+    
+    // Records in the file, including any not yet written
+    public synchronized long size()
+    {
+        return records;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (!channel.isOpen())
+        {
+            return;
+        }
+        
+        try
+        {
+            sync();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+    
+    private void write() throws IOException
+    {
+        pending.flip();
+        try
+        {
+            while (pending.hasRemaining())
+            {
+                channel.write(pending);
+            }
+        }
+        finally
+        {
+            pending.clear();
+        }
+    }
+    
+    private void putName(String name)
+    {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        if (length > MAX_NAME_BYTES)
+        {
+            // Cut on a character boundary, never inside a multi-byte sequence
+            length = MAX_NAME_BYTES;
+            while ((bytes[length] & 0xC0) == 0x80)
+            {
+                length--;
+            }
+        }
+        record.put((byte)length).put(bytes, 0, length);
+    }
+    
+    private static byte encodeWinner(char winner)
+    {
+        return (byte)((winner == GameModel.RED) ? 1 : (winner == GameModel.BLACK) ? 2 : 0);
+    }
+    
+    private static char decodeWinner(int code)
+    {
+        return (code == 1) ? GameModel.RED : (code == 2) ? GameModel.BLACK : GameModel.EMPTY;
+    }
+    
+    // Streams every intact record to the consumer, in file order, and
+    // returns how many there were
+    public static long read(Path path, Consumer<GameRecord> consumer) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            checkHeader(channel);
+            long[] count = new long[1];
+            scan(channel, consumer, count);
+            return count[0];
+        }
+    }
+    
+    private static void checkHeader(FileChannel channel) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining())
+        {
+            if (channel.read(header, header.position()) < 0)
+            {
+                break;
+            }
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE ||
+            header.getInt() != MAGIC ||
+            header.getInt() != VERSION)
+        {
+            throw new IOException("Not a game journal");
+        }
+    }
+    
+    // Reads records from just past the header and returns the offset where
+    // the intact ones end; records are only decoded when there is a consumer
+    private static long scan(FileChannel channel, Consumer<GameRecord> consumer, long[] count) throws IOException
+    {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        CRC32C checksum = new CRC32C();
+        long filePosition = HEADER_SIZE;
+        long end = HEADER_SIZE;
+        boolean endOfFile = false;
+        
+        while (!endOfFile)
+        {
+            int read = channel.read(buffer, filePosition);
+            if (read < 0)
+            {
+                endOfFile = true;
+            }
+            else
+            {
+                filePosition += read;
+            }
+            buffer.flip();
+            
+            while (buffer.remaining() >= Short.BYTES)
+            {
+                int start = buffer.position();
+                int bodySize = buffer.getShort(start) & 0xFFFF;
+                // Without a valid length the record's end is unknown, so it
+                // counts as the last one when no longer record would fit
+                if (bodySize < FIXED_BODY_SIZE + 2 || bodySize > MAX_BODY_SIZE)
+                {
+                    return tornTail(end, size - end < MAX_RECORD_SIZE);
+                }
+                int recordSize = Short.BYTES + bodySize + Integer.BYTES;
+                if (buffer.remaining() < recordSize)
+                {
+                    break;
+                }
+                
+                ByteBuffer body = buffer.slice(start + Short.BYTES, bodySize);
+                checksum.reset();
+                checksum.update(body);
+                if ((int)checksum.getValue() != buffer.getInt(start + Short.BYTES + bodySize))
+                {
+                    return tornTail(end, end + recordSize >= size);
+                }
+                if (consumer != null)
+                {
+                    consumer.accept(decode(body.rewind()));
+                }
+                
+                buffer.position(start + recordSize);
+                end += recordSize;
+                count[0]++;
+            }
+            buffer.compact();
+        }
+        return end;
+    }
+    
+    private static long tornTail(long offset, boolean last) throws IOException
+    {
+        if (!last)
+        {
+            throw new IOException("Corrupt game journal record at byte " + offset);
+        }
+        return offset;
+    }
+    
+    private static GameRecord decode(ByteBuffer body)
+    {
+        int rows = body.get();
+        int cols = body.get();
+        int connect = body.get();
+        int gameType = body.get();
+        int difficultyLevel = body.get();
+        char winner = decodeWinner(body.get());
+        long startMillis = body.getLong();
+        long durationMillis = body.getInt() & 0xFFFFFFFFL;
+        int moveCount = body.getShort() & 0xFFFF;
+        String player1Name = getName(body);
+        String player2Name = getName(body);
+        
+        byte[] moves = new byte[moveCount];
+        for (int i = 0; i < moveCount; i += 2)
+        {
+            int packed = body.get();
+            moves[i] = (byte)(packed & 0xF);
+            if (i + 1 < moveCount)
+            {
+                moves[i + 1] = (byte)((packed >>> 4) & 0xF);
+            }
+        }
+        return new GameRecord(rows, cols, connect, gameType, difficultyLevel, player1Name, player2Name,
+                              winner, startMillis, durationMillis, moves, moveCount);
+    }
+    
+    private static String getName(ByteBuffer body)
+    {
+        byte[] bytes = new byte[body.get() & 0xFF];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !args[1].equals("--replay")))
+        {
+            throw new IllegalArgumentException("Usage: GameJournal FILE [--replay]");
+        }
+        boolean replay = args.length == 2;
+        
+        // Results by red win, black win, draw; then moves and failed replays
+        long[] totals = new long[5];
+        GameModel[] models = new GameModel[1];
+        long start = System.nanoTime();
+        long games = read(Paths.get(args[0]), game ->
+        {
+            totals[(game.getWinner() == GameModel.RED) ? 0 : (game.getWinner() == GameModel.BLACK) ? 1 : 2]++;
+            totals[3] += game.getMoveCount();
+            if (replay)
+            {
+                GameModel model = models[0];
+                if (model == null ||
+                    model.getRows() != game.getRows() ||
+                    model.getCols() != game.getCols() ||
+                    model.getConnect() != game.getConnect())
+                {
+                    model = new GameModel(game.getRows(), game.getCols(), game.getConnect());
+                    models[0] = model;
+                }
+                model.reset();
+                if (!game.replay(model))
+                {
+                    totals[4]++;
+                }
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        
+        System.out.printf("%,d games: %,d red wins, %,d black wins, %,d draws, %.1f moves per game%n",
+                          games, totals[0], totals[1], totals[2], (double)totals[3] / Math.max(games, 1));
+        if (replay)
+        {
+            System.out.printf("%,d games did not replay to their recorded result%n", totals[4]);
+        }
+        System.out.printf("Read in %.2f s (%,.0f games/s)%n", seconds, games / seconds);
+    }
+}
\ No newline at end of file
@@ -9,43 +9,155 @@ public final class GameModel
         BLACK = 'B', 
         EMPTY = ' ';
     
+    // The standard board, and the only one the solver, opening book and
+    // endgame cache understand
     public static final int ROWS = 6;
     public static final int COLS = 7;
+    public static final int CONNECT = 4;
     
-    private final char[][] board;
-    private final int[] availableRows;
+    public static final int MIN_SIZE = 4;
+    public static final int MAX_SIZE = 16;
+    
+    // Boards of up to this many bits, counting the spare bit on top of each
+    // column, are kept in one long per player. Above that they are packed
+    // into long arrays. The limit leaves room for the position key's carry
+    // bit and for AIEngine's side-to-move bit at 62.
+    public static final int MAX_BITBOARD_BITS = 61;
+    
+    // Bitboard layout: each column takes rows + 1 bits, bottom cell first.
+    // The spare bit on top of every column keeps shifted lines from wrapping.
+    private final int rows;
+    private final int cols;
+    private final int connect;
+    private final int columnBits;
+    private final int boardBits;
+    
+    private long redBoard;
+    private long blackBoard;
+    private final long[] redWords;
+    private final long[] blackWords;
+    private final long[] lineWords;
+    private final int[] heights;
     private int moveCount;
     
     public GameModel()
     {
-        board = new char[ROWS][COLS];
-        availableRows = new int[COLS];
+        this(ROWS, COLS, CONNECT);
+    }
+    
+    public GameModel(int rows, int cols, int connect)
+    {
+        if (rows < MIN_SIZE || rows > MAX_SIZE || cols < MIN_SIZE || cols > MAX_SIZE)
+        {
+            throw new IllegalArgumentException("Invalid board size");
+        }
+        if (connect < 3 || connect > Math.max(rows, cols))
+        {
+            throw new IllegalArgumentException("Invalid connect length");
+        }
+        
+        this.rows = rows;
+        this.cols = cols;
+        this.connect = connect;
+        columnBits = rows + 1;
+        boardBits = cols * columnBits;
+        if (boardBits > MAX_BITBOARD_BITS)
+        {
+            redWords = new long[(boardBits + Long.SIZE - 1) / Long.SIZE];
+            blackWords = new long[redWords.length];
+            lineWords = new long[redWords.length];
+        }
+        else
+        {
+            redWords = null;
+            blackWords = null;
+            lineWords = null;
+        }
+        heights = new int[cols];
         reset();
     }
     
+    public GameModel(GameModel other)
+    {
+        this(other.rows, other.cols, other.connect);
+        copyFrom(other);
+    }
+    
+    public void copyFrom(GameModel other)
+    {
+        if (other.rows != rows || other.cols != cols || other.connect != connect)
+        {
+            throw new IllegalArgumentException("Board sizes differ");
+        }
+        
+        redBoard = other.redBoard;
+        blackBoard = other.blackBoard;
+        if (redWords != null)
+        {
+            System.arraycopy(other.redWords, 0, redWords, 0, redWords.length);
+            System.arraycopy(other.blackWords, 0, blackWords, 0, blackWords.length);
+        }
+        System.arraycopy(other.heights, 0, heights, 0, cols);
+        moveCount = other.moveCount;
+    }
+    
     public void reset()
     {
-        for (int row = 0; row < ROWS; row++)
+        redBoard = 0L;
+        blackBoard = 0L;
+        if (redWords != null)
         {
-            Arrays.fill(board[row], EMPTY);
+            Arrays.fill(redWords, 0L);
+            Arrays.fill(blackWords, 0L);
         }
-        Arrays.fill(availableRows, ROWS - 1);
+        Arrays.fill(heights, 0);
         moveCount = 0;
     }
     
+    public int getRows()
+    {
+        return rows;
+    }
+    
+    public int getCols()
+    {
+        return cols;
+    }
+    
+    public int getConnect()
+    {
+        return connect;
+    }
+    
+    public boolean isStandardSize()
+    {
+        return rows == ROWS && cols == COLS && connect == CONNECT;
+    }
+    
+    // True when the board fits in one long per player
+    public boolean isBitboard()
+    {
+        return redWords == null;
+    }
+    
     public boolean isColumnFull(int col)
     {
-        return availableRows[col] < 0;
+        return heights[col] >= rows;
     }
     
     public boolean isBoardFull()
     {
-        return moveCount == ROWS * COLS;
+        return moveCount == rows * cols;
+    }
+    
+    public int getMoveCount()
+    {
+        return moveCount;
     }
     
     public void makeMove(int col, char player)
     {
-        if (col < 0 || col >= COLS || isColumnFull(col))
+        if (col < 0 || col >= cols || isColumnFull(col))
         {
             throw new IllegalArgumentException("Invalid move");
         }
@@ -54,104 +166,330 @@ public final class GameModel
             throw new IllegalArgumentException("Invalid player");
         }
         
-        int row = availableRows[col]--;
-        board[row][col] = player;
+        int index = col * columnBits + heights[col]++;
+        if (redWords == null)
+        {
+            long bit = 1L << index;
+            if (player == RED)
+            {
+                redBoard |= bit;
+            }
+            else
+            {
+                blackBoard |= bit;
+            }
+        }
+        else
+        {
+            long[] words = (player == RED) ? redWords : blackWords;
+            words[index >>> 6] |= 1L << index;
+        }
         moveCount++;
     }
     
     public void undoMove(int col)
     {
-        if (col < 0 || col >= COLS || availableRows[col] >= ROWS - 1)
+        if (col < 0 || col >= cols || heights[col] <= 0)
         {
             throw new IllegalArgumentException("Invalid undo");
         }
         
-        int row = ++availableRows[col];
-        board[row][col] = EMPTY;
+        int index = col * columnBits + --heights[col];
+        if (redWords == null)
+        {
+            long bit = 1L << index;
+            redBoard &= ~bit;
+            blackBoard &= ~bit;
+        }
+        else
+        {
+            redWords[index >>> 6] &= ~(1L << index);
+            blackWords[index >>> 6] &= ~(1L << index);
+        }
         moveCount--;
     }
     
     public char checkWinner()
     {
-        // Horizontal check
-        for (int row = 0; row < ROWS; row++)
+        if (redWords == null)
         {
-            for (int col = 0; col <= COLS - 4; col++)
+            if (hasLine(redBoard))
             {
-                char player = board[row][col];
-                if (player != EMPTY &&
-                    player == board[row][col+1] &&
-                    player == board[row][col+2] &&
-                    player == board[row][col+3])
-                {
-                    return player;
-                }
+                return RED;
+            }
+            if (hasLine(blackBoard))
+            {
+                return BLACK;
             }
+            return EMPTY;
         }
         
-        // Vertical check
-        for (int col = 0; col < COLS; col++)
+        if (hasLine(redWords))
+        {
+            return RED;
+        }
+        if (hasLine(blackWords))
         {
-            for (int row = 0; row <= ROWS - 4; row++)
+            return BLACK;
+        }
+        return EMPTY;
+    }
+    
+    // Only looks at the lines through the top disc of the given column, so it
+    // must be called right after the move that dropped that disc
+    public char checkWinnerAt(int col)
+    {
+        if (col < 0 || col >= cols || heights[col] <= 0)
+        {
+            throw new IllegalArgumentException("Invalid column");
+        }
+        
+        return winnerThrough(col * columnBits + heights[col] - 1);
+    }
+    
+    private char winnerThrough(int index)
+    {
+        if (redWords == null)
+        {
+            char player = ((redBoard >>> index) & 1) != 0 ? RED : BLACK;
+            long board = (player == RED) ? redBoard : blackBoard;
+            
+            if (countLine(board, index, 1) >= connect ||
+                countLine(board, index, columnBits) >= connect ||
+                countLine(board, index, columnBits - 1) >= connect ||
+                countLine(board, index, columnBits + 1) >= connect)
             {
-                char player = board[row][col];
-                if (player != EMPTY &&
-                    player == board[row+1][col] &&
-                    player == board[row+2][col] &&
-                    player == board[row+3][col])
-                {
-                    return player;
-                }
+                return player;
             }
+            return EMPTY;
+        }
+        
+        char player = isSet(redWords, index) ? RED : BLACK;
+        long[] words = (player == RED) ? redWords : blackWords;
+        if (countLine(words, index, 1) >= connect ||
+            countLine(words, index, columnBits) >= connect ||
+            countLine(words, index, columnBits - 1) >= connect ||
+            countLine(words, index, columnBits + 1) >= connect)
+        {
+            return player;
+        }
+        return EMPTY;
+    }
+    
+    private int countLine(long board, int index, int shift)
+    {
+        int count = 1;
+        for (int i = index + shift; count < connect && i < boardBits && ((board >>> i) & 1) != 0; i += shift)
+        {
+            count++;
+        }
+        for (int i = index - shift; count < connect && i >= 0 && ((board >>> i) & 1) != 0; i -= shift)
+        {
+            count++;
+        }
+        return count;
+    }
+    
+    private int countLine(long[] words, int index, int shift)
+    {
+        int count = 1;
+        for (int i = index + shift; count < connect && i < boardBits && isSet(words, i); i += shift)
+        {
+            count++;
+        }
+        for (int i = index - shift; count < connect && i >= 0 && isSet(words, i); i -= shift)
+        {
+            count++;
+        }
+        return count;
+    }
+    
+    private static boolean isSet(long[] words, int index)
+    {
+        return ((words[index >>> 6] >>> index) & 1) != 0;
+    }
+    
+    private boolean hasLine(long board)
+    {
+        // Vertical, horizontal and both diagonals
+        return hasLine(board, 1) ||
+               hasLine(board, columnBits) ||
+               hasLine(board, columnBits - 1) ||
+               hasLine(board, columnBits + 1);
+    }
+    
+    // Doubles the run length covered by each set bit until it reaches the
+    // connect length: two shifts for four in a row, three for five
+    private boolean hasLine(long board, int shift)
+    {
+        if (connect == CONNECT)
+        {
+            long pairs = board & (board >>> shift);
+            return (pairs & (pairs >>> (2 * shift))) != 0;
+        }
+        
+        long runs = board;
+        int run = 1;
+        while (run * 2 <= connect)
+        {
+            runs &= runs >>> (run * shift);
+            run *= 2;
+        }
+        if (run < connect)
+        {
+            runs &= runs >>> ((connect - run) * shift);
+        }
+        return runs != 0;
+    }
+    
+    private boolean hasLine(long[] words)
+    {
+        return hasLine(words, 1) ||
+               hasLine(words, columnBits) ||
+               hasLine(words, columnBits - 1) ||
+               hasLine(words, columnBits + 1);
+    }
+    
+    // The same doubling as on a bitboard, shifting across word boundaries
+    private boolean hasLine(long[] words, int shift)
+    {
+        System.arraycopy(words, 0, lineWords, 0, words.length);
+        int run = 1;
+        while (run * 2 <= connect)
+        {
+            andShifted(lineWords, run * shift);
+            run *= 2;
+        }
+        if (run < connect)
+        {
+            andShifted(lineWords, (connect - run) * shift);
         }
         
-        // Diagonal (top-left to bottom-right)
-        for (int row = 0; row <= ROWS - 4; row++)
+        for (long word : lineWords)
         {
-            for (int col = 0; col <= COLS - 4; col++)
+            if (word != 0)
             {
-                char player = board[row][col];
-                if (player != EMPTY &&
-                    player == board[row+1][col+1] &&
-                    player == board[row+2][col+2] &&
-                    player == board[row+3][col+3])
-                {
-                    return player;
-                }
+                return true;
             }
         }
-        
-        // Diagonal (bottom-left to top-right)
-        for (int row = 3; row < ROWS; row++)
+        return false;
+    }
+    
+    // runs &= runs >>> distance, in place: each word only reads words at or
+    // above its own index, which are not yet updated
+    private static void andShifted(long[] runs, int distance)
+    {
+        int wordShift = distance >>> 6;
+        int bitShift = distance & 63;
+        for (int i = 0; i < runs.length; i++)
         {
-            for (int col = 0; col <= COLS - 4; col++)
+            int from = i + wordShift;
+            long shifted = 0;
+            if (from < runs.length)
             {
-                char player = board[row][col];
-                if (player != EMPTY &&
-                    player == board[row-1][col+1] &&
-                    player == board[row-2][col+2] &&
-                    player == board[row-3][col+3])
+                shifted = runs[from] >>> bitShift;
+                if (bitShift != 0 && from + 1 < runs.length)
                 {
-                    return player;
+                    shifted |= runs[from + 1] << (64 - bitShift);
                 }
             }
+            runs[i] &= shifted;
         }
-        
-        return EMPTY;
     }
     
     public char[][] getBoardState()
     {
-        char[][] copy = new char[ROWS][COLS];
-        for (int row = 0; row < ROWS; row++)
+        char[][] copy = new char[rows][cols];
+        for (int row = 0; row < rows; row++)
         {
-            System.arraycopy(board[row], 0, copy[row], 0, COLS);
+            for (int col = 0; col < cols; col++)
+            {
+                copy[row][col] = getCell(row, col);
+            }
         }
         return copy;
     }
     
+    public char getCell(int row, int col)
+    {
+        int index = col * columnBits + rows - 1 - row;
+        if (redWords == null)
+        {
+            long bit = 1L << index;
+            if ((redBoard & bit) != 0)
+            {
+                return RED;
+            }
+            if ((blackBoard & bit) != 0)
+            {
+                return BLACK;
+            }
+            return EMPTY;
+        }
+        
+        if (isSet(redWords, index))
+        {
+            return RED;
+        }
+        if (isSet(blackWords, index))
+        {
+            return BLACK;
+        }
+        return EMPTY;
+    }
+    
+    // Bitboards only
+    long getPlayerBoard(char player)
+    {
+        return (player == RED) ? redBoard : blackBoard;
+    }
+    
+    // Unique per position on a bitboard: adding the occupancy mask to the red
+    // discs sets one marker bit above each column's stack, so no two boards
+    // share a key. Larger boards hash their words instead, so two positions
+    // may collide, about as rarely as two random 64-bit values.
+    public long getPositionKey()
+    {
+        if (redWords == null)
+        {
+            return redBoard + (redBoard | blackBoard);
+        }
+        
+        long hash = 0;
+        for (int i = 0; i < redWords.length; i++)
+        {
+            hash = (hash ^ redWords[i]) * 0xFF51AFD7ED558CCDL;
+            hash = (hash ^ (redWords[i] | blackWords[i])) * 0xC4CEB9FE1A85EC53L;
+            hash ^= hash >>> 33;
+        }
+        return hash;
+    }
+    
+    // The key of this position reflected left to right. Each column's
+    // marker and discs stay within its own bits, so reversing the order of
+    // the columns in the key gives the mirrored position's key. Bitboards
+    // only.
+    public long getMirroredPositionKey()
+    {
+        if (redWords != null)
+        {
+            throw new IllegalArgumentException("Mirrored keys need a bitboard");
+        }
+        
+        long key = redBoard + (redBoard | blackBoard);
+        long columnMask = (1L << columnBits) - 1;
+        long mirrored = 0;
+        for (int left = 0, right = cols - 1; left <= right; left++, right--)
+        {
+            int distance = (right - left) * columnBits;
+            long leftMask = columnMask << (left * columnBits);
+            mirrored |= ((key >>> distance) & leftMask) | ((key & leftMask) << distance);
+        }
+        return mirrored;
+    }
+    
     public int getFirstAvailableRow(int col)
     {
-        return availableRows[col];
+        return rows - 1 - heights[col];
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package Solution;
+
+import java.util.Arrays;
+
+// One finished game as kept in the game journal: the board and difficulty
+// it was played with, who played, how it ended, when, and every move
+public final class GameRecord
+{
+    private final int rows;
+    private final int cols;
+    private final int connect;
+    private final int gameType;
+    private final int difficultyLevel;
+    private final String player1Name;
+    private final String player2Name;
+    private final char winner;
+    private final long startMillis;
+    private final long durationMillis;
+    private final byte[] moves;
+    
+    // Moves are the columns played, red first; winner is EMPTY for a draw
+    public GameRecord(GameConfig config, String player1Name, String player2Name, char winner,
+                      long startMillis, long durationMillis, byte[] moves, int moveCount)
+    {
+        this(config.getRows(), config.getCols(), config.getConnect(),
+             config.getGameType(), config.getDifficultyLevel(),
+             player1Name, player2Name, winner, startMillis, durationMillis, moves, moveCount);
+    }
+    
+    GameRecord(int rows, int cols, int connect, int gameType, int difficultyLevel,
+               String player1Name, String player2Name, char winner,
+               long startMillis, long durationMillis, byte[] moves, int moveCount)
+    {
+        if (winner != GameModel.RED && winner != GameModel.BLACK && winner != GameModel.EMPTY)
+        {
+            throw new IllegalArgumentException("Invalid winner");
+        }
+        if (moveCount < 0 || moveCount > rows * cols || moveCount > moves.length)
+        {
+            throw new IllegalArgumentException("Invalid move count");
+        }
+        for (int i = 0; i < moveCount; i++)
+        {
+            if (moves[i] < 0 || moves[i] >= cols)
+            {
+                throw new IllegalArgumentException("Invalid move");
+            }
+        }
+        
+        this.rows = rows;
+        this.cols = cols;
+        this.connect = connect;
+        this.gameType = gameType;
+        this.difficultyLevel = difficultyLevel;
+        this.player1Name = player1Name;
+        this.player2Name = player2Name;
+        this.winner = winner;
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.moves = Arrays.copyOf(moves, moveCount);
+    }
+    
+    public int getRows()
+    {
+        return rows;
+    }
+    
+    public int getCols()
+    {
+        return cols;
+    }
+    
+    public int getConnect()
+    {
+        return connect;
+    }
+    
+    public int getGameType()
+    {
+        return gameType;
+    }
+    
+    public int getDifficultyLevel()
+    {
+        return difficultyLevel;
+    }
+    
+    public String getPlayer1Name()
+    {
+        return player1Name;
+    }
+    
+    public String getPlayer2Name()
+    {
+        return player2Name;
+    }
+    
+    public char getWinner()
+    {
+        return winner;
+    }
+    
+    // Wall-clock time the game started, in milliseconds since the epoch
+    public long getStartMillis()
+    {
+        return startMillis;
+    }
+    
+    public long getDurationMillis()
+    {
+        return durationMillis;
+    }
+    
+    public int getMoveCount()
+    {
+        return moves.length;
+    }
+    
+    public int getMove(int index)
+    {
+        return moves[index];
+    }
+    
+    // Plays the moves onto the model, which must be empty and of this
+    // record's size; false when they are illegal or do not end as recorded
+    public boolean replay(GameModel model)
+    {
+        char player = GameModel.RED;
+        char result = GameModel.EMPTY;
+        for (int i = 0; i < moves.length; i++)
+        {
+            if (result != GameModel.EMPTY || model.isColumnFull(moves[i]))
+            {
+                return false;
+            }
+            model.makeMove(moves[i], player);
+            result = model.checkWinnerAt(moves[i]);
+            player = (player == GameModel.RED) ? GameModel.BLACK : GameModel.RED;
+        }
+        return result == winner && (result != GameModel.EMPTY || model.isBoardFull());
+    }
+}
\ No newline at end of file
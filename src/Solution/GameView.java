@@ -4,158 +4,419 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 public class GameView extends JFrame
 {
-    private static final int CELL_SIZE = 80;
-    private static final int BOARD_WIDTH = GameModel.COLS * CELL_SIZE;
-    private static final int BOARD_HEIGHT = (GameModel.ROWS + 1) * CELL_SIZE;
+    private static final int MAX_CELL_SIZE = 80;
+    private static final int MAX_BOARD_SIZE = 800;
+    
+    // About 60 frames a second; a disc falls the full height of the board
+    // in DROP_NANOS and proportionally less from lower down, as if dropped
+    private static final int FRAME_MILLIS = 16;
+    private static final long DROP_NANOS = 350_000_000L;
+    
+    private static final Color BACKGROUND_COLOR = new Color(242, 242, 247);
+    private static final Color HOLE_SHADOW_COLOR = new Color(220, 220, 220);
+    private static final Color DISC_SHADOW_COLOR = new Color(0, 0, 0, 20);
+    private static final Color RED_DISC_COLOR = new Color(255, 59, 48);
+    private static final Color BLUE_DISC_COLOR = new Color(0, 122, 255);
+    private static final Color HIGHLIGHT_COLOR = new Color(255, 255, 255, 100);
+    private static final Color HIGHLIGHT_FADE_COLOR = new Color(255, 255, 255, 0);
+    private static final Color HOVER_COLOR = new Color(0, 122, 255, 100);
     
     private final GameController controller;
+    private final int rows;
+    private final int cols;
+    private final int cellSize;
+    private final int boardWidth;
+    private final int boardHeight;
     private BoardPanel boardPanel;
     private JLabel statusLabel;
-    private final int animatedColumn = -1;
+    private Timer thinkingTimer;
+    private final double dropAcceleration;
+    private Timer frameTimer;
+    private int animatedColumn = -1;
+    private int animatedRow;
+    private char animatedPlayer;
+    private int animatedY;
+    private int targetY;
+    private long dropStartNanos;
+    private Runnable afterDrop;
     
     public GameView(GameController controller)
     {
         this.controller = controller;
+        rows = controller.getModel().getRows();
+        cols = controller.getModel().getCols();
+        // Shrink the cells so large boards still fit on screen
+        cellSize = Math.min(MAX_CELL_SIZE, MAX_BOARD_SIZE / Math.max(cols, rows + 1));
+        boardWidth = cols * cellSize;
+        boardHeight = (rows + 1) * cellSize;
+        // Pixels per nanosecond squared
+        dropAcceleration = 2.0 * rows * cellSize / ((double)DROP_NANOS * DROP_NANOS);
         initializeUI();
     }
     
     private void initializeUI()
     {
-        setTitle("Connect Four");
+        int connect = controller.getModel().getConnect();
+        setTitle((connect == GameModel.CONNECT) ? "Connect Four" : "Connect " + connect);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setResizable(false);
         getContentPane().setBackground(new Color(242, 242, 247));
         
         boardPanel = new BoardPanel();
-        boardPanel.setPreferredSize(new Dimension(BOARD_WIDTH, BOARD_HEIGHT));
-        boardPanel.addMouseListener(new BoardMouseListener());
+        boardPanel.setPreferredSize(new Dimension(boardWidth, boardHeight));
+        BoardMouseListener mouseListener = new BoardMouseListener();
+        boardPanel.addMouseListener(mouseListener);
+        boardPanel.addMouseMotionListener(mouseListener);
+        
+        // One timer for every drop, running only while a disc falls. Ticks
+        // the EDT is too busy to deliver are coalesced, and each frame
+        // places the disc by elapsed time, so a late frame skips ahead
+        // instead of slowing the drop.
+        frameTimer = new Timer(FRAME_MILLIS, e -> nextFrame());
+        frameTimer.setCoalesce(true);
         
         statusLabel = new JLabel("", SwingConstants.CENTER);
         statusLabel.setFont(new Font("SF Pro Display", Font.PLAIN, 16));
         statusLabel.setBorder(BorderFactory.createEmptyBorder(15, 5, 15, 5));
         
+        JButton newGameButton = createButton("New Game");
+        newGameButton.addActionListener(e -> controller.startNewGame());
+        
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.setBackground(new Color(242, 242, 247));
+        statusPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 15));
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        if (controller.getGameType() == GameConfig.COMPUTER_COMPUTER)
+        {
+            statusPanel.add(createPlaybackPanel(newGameButton), BorderLayout.EAST);
+        }
+        else
+        {
+            statusPanel.add(newGameButton, BorderLayout.EAST);
+        }
+        
         getContentPane().setLayout(new BorderLayout());
         getContentPane().add(boardPanel, BorderLayout.CENTER);
-        getContentPane().add(statusLabel, BorderLayout.SOUTH);
+        getContentPane().add(statusPanel, BorderLayout.SOUTH);
+        
+        addWindowListener(new WindowAdapter()
+        {
+            @Override
+            public void windowClosing(WindowEvent e)
+            {
+                controller.shutdown();
+            }
+        });
         
         updateStatus();
         pack();
         setLocationRelativeTo(null);
     }
     
+    // Pause, step and resume for games between two computers
+    private JPanel createPlaybackPanel(JButton newGameButton)
+    {
+        JButton pauseButton = createButton("Pause");
+        JButton stepButton = createButton("Step");
+        stepButton.setEnabled(false);
+        
+        pauseButton.addActionListener(e -> 
+        {
+            if (controller.isPaused())
+            {
+                controller.resume();
+                pauseButton.setText("Pause");
+                stepButton.setEnabled(false);
+            }
+            else
+            {
+                controller.pause();
+                pauseButton.setText("Resume");
+                stepButton.setEnabled(true);
+            }
+        });
+        stepButton.addActionListener(e -> controller.step());
+        
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        panel.setBackground(new Color(242, 242, 247));
+        panel.add(pauseButton);
+        panel.add(stepButton);
+        panel.add(newGameButton);
+        return panel;
+    }
+    
+    private JButton createButton(String text)
+    {
+        JButton button = new JButton(text);
+        button.setFont(new Font("SF Pro Text", Font.BOLD, 14));
+        button.setBackground(new Color(0, 122, 255));
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        button.setBorder(BorderFactory.createEmptyBorder(8, 16, 8, 16));
+        button.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        return button;
+    }
+    
+    // The board and its holes never change, so they are drawn once into an
+    // image; discs and the hover marker are drawn from cached sprites. Only
+    // the cells whose contents changed, and the hover strip above them, are
+    // repainted.
     private class BoardPanel extends JPanel
     {
         private int hoverColumn = -1;
+        private int shownHoverColumn = -1;
+        private final char[] shownCells = new char[rows * cols];
+        private Image boardImage;
+        private Image redDisc;
+        private Image blackDisc;
+        private Image hoverDisc;
+        
+        BoardPanel()
+        {
+            Arrays.fill(shownCells, GameModel.EMPTY);
+        }
         
         @Override
         protected void paintComponent(Graphics g)
         {
-            super.paintComponent(g);
-            Graphics2D g2d = (Graphics2D)g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, 
-                               RenderingHints.VALUE_ANTIALIAS_ON);
+            if (boardImage == null)
+            {
+                createImages();
+            }
+            
+            // The board image covers every pixel, so there is no background to clear
+            g.drawImage(boardImage, 0, 0, null);
+            
+            // Only the cells inside the dirty region
+            Rectangle clip = g.getClipBounds();
+            int firstCol = Math.max(0, clip.x / cellSize);
+            int lastCol = Math.min(cols - 1, (clip.x + clip.width - 1) / cellSize);
+            int firstRow = Math.max(0, clip.y / cellSize - 1);
+            int lastRow = Math.min(rows - 1, (clip.y + clip.height - 1) / cellSize - 1);
+            GameModel model = controller.getModel();
+            for (int row = firstRow; row <= lastRow; row++)
+            {
+                for (int col = firstCol; col <= lastCol; col++)
+                {
+                    char cell = model.getCell(row, col);
+                    if (cell != GameModel.EMPTY && (row != animatedRow || col != animatedColumn))
+                    {
+                        drawSprite(g, discImage(cell), row + 1, col);
+                    }
+                }
+            }
             
-            drawBoard(g2d);
-            drawDiscs(g2d);
-            drawHoverIndicator(g2d);
-            drawAnimatedDisc(g2d);
+            if (clip.y < cellSize)
+            {
+                drawHoverIndicator(g);
+            }
+            drawAnimatedDisc(g);
         }
         
-        private void drawBoard(Graphics2D g2d)
+        private void createImages()
         {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            boardImage = createImage(gc, boardWidth, boardHeight, Transparency.OPAQUE);
+            Graphics2D g2d = antialiased(boardImage);
+            g2d.setColor(BACKGROUND_COLOR);
+            g2d.fillRect(0, 0, boardWidth, boardHeight);
             g2d.setColor(Color.WHITE);
-            g2d.fillRoundRect(0, CELL_SIZE, 
-                            BOARD_WIDTH, BOARD_HEIGHT - CELL_SIZE, 
+            g2d.fillRoundRect(0, cellSize, 
+                            boardWidth, boardHeight - cellSize, 
                             20, 20);
             
-            for (int col = 0; col < GameModel.COLS; col++)
+            for (int col = 0; col < cols; col++)
             {
-                for (int row = 0; row < GameModel.ROWS; row++)
+                for (int row = 0; row < rows; row++)
                 {
-                    int x = col * CELL_SIZE + CELL_SIZE/2;
-                    int y = (row + 1) * CELL_SIZE + CELL_SIZE/2;
+                    int x = col * cellSize + cellSize/2;
+                    int y = (row + 1) * cellSize + cellSize/2;
                     
-                    g2d.setColor(new Color(220, 220, 220));
-                    g2d.fillOval(x - CELL_SIZE/3 + 2, y - CELL_SIZE/3 + 2, 
-                                CELL_SIZE*2/3, CELL_SIZE*2/3);
+                    g2d.setColor(HOLE_SHADOW_COLOR);
+                    g2d.fillOval(x - cellSize/3 + 2, y - cellSize/3 + 2, 
+                                cellSize*2/3, cellSize*2/3);
                     
-                    g2d.setColor(new Color(242, 242, 247));
-                    g2d.fillOval(x - CELL_SIZE/3, y - CELL_SIZE/3, 
-                                CELL_SIZE*2/3, CELL_SIZE*2/3);
+                    g2d.setColor(BACKGROUND_COLOR);
+                    g2d.fillOval(x - cellSize/3, y - cellSize/3, 
+                                cellSize*2/3, cellSize*2/3);
                 }
             }
+            g2d.dispose();
+            
+            redDisc = createDisc(gc, RED_DISC_COLOR);
+            blackDisc = createDisc(gc, BLUE_DISC_COLOR);
+            
+            hoverDisc = createImage(gc, cellSize, cellSize, Transparency.TRANSLUCENT);
+            g2d = antialiased(hoverDisc);
+            g2d.setColor(HOVER_COLOR);
+            g2d.fillOval(cellSize/2 - cellSize/3, cellSize/2 - cellSize/3, 
+                        cellSize*2/3, cellSize*2/3);
+            g2d.dispose();
         }
         
-        private void drawDiscs(Graphics2D g2d)
+        private Image createDisc(GraphicsConfiguration gc, Color discColor)
         {
-            char[][] board = controller.getModel().getBoardState();
+            Image disc = createImage(gc, cellSize, cellSize, Transparency.TRANSLUCENT);
+            Graphics2D g2d = antialiased(disc);
+            int x = cellSize/2;
+            int y = cellSize/2;
             
-            for (int row = 0; row < GameModel.ROWS; row++)
+            g2d.setColor(DISC_SHADOW_COLOR);
+            g2d.fillOval(x - cellSize/3 + 2, y - cellSize/3 + 2, 
+                        cellSize*2/3, cellSize*2/3);
+            
+            g2d.setColor(discColor);
+            g2d.fillOval(x - cellSize/3, y - cellSize/3, 
+                        cellSize*2/3, cellSize*2/3);
+            
+            g2d.setPaint(new GradientPaint(
+                x, y - cellSize/6, HIGHLIGHT_COLOR,
+                x, y, HIGHLIGHT_FADE_COLOR));
+            g2d.fillOval(x - cellSize/4, y - cellSize/4, 
+                         cellSize/2, cellSize/3);
+            g2d.dispose();
+            return disc;
+        }
+        
+        // Compatible images are laid out like the screen, so drawing them
+        // is a plain copy that the pipeline can keep in video memory
+        private Image createImage(GraphicsConfiguration gc, int width, int height, int transparency)
+        {
+            if (gc != null)
             {
-                for (int col = 0; col < GameModel.COLS; col++)
-                {
-                    if (board[row][col] != GameModel.EMPTY)
-                    {
-                        drawDisc(g2d, row, col, board[row][col]);
-                    }
-                }
+                return gc.createCompatibleImage(width, height, transparency);
             }
+            return new BufferedImage(width, height, 
+                                     (transparency == Transparency.OPAQUE) 
+                                         ? BufferedImage.TYPE_INT_RGB 
+                                         : BufferedImage.TYPE_INT_ARGB);
         }
         
-        private void drawDisc(Graphics2D g2d, int row, int col, char player)
+        private Graphics2D antialiased(Image image)
         {
-            int x = col * CELL_SIZE + CELL_SIZE/2;
-            int y = (row + 1) * CELL_SIZE + CELL_SIZE/2;
-            
-            Color discColor = (player == GameModel.RED) ? 
-                new Color(255, 59, 48) : new Color(0, 122, 255);
-            
-            g2d.setColor(new Color(0, 0, 0, 20));
-            g2d.fillOval(x - CELL_SIZE/3 + 2, y - CELL_SIZE/3 + 2, 
-                        CELL_SIZE*2/3, CELL_SIZE*2/3);
-            
-            g2d.setColor(discColor);
-            g2d.fillOval(x - CELL_SIZE/3, y - CELL_SIZE/3, 
-                        CELL_SIZE*2/3, CELL_SIZE*2/3);
-            
-            GradientPaint highlight = new GradientPaint(
-                x, y - CELL_SIZE/6, new Color(255, 255, 255, 100),
-                x, y, new Color(255, 255, 255, 0));
-            
-            g2d.setPaint(highlight);
-            g2d.fillOval(x - CELL_SIZE/4, y - CELL_SIZE/4, 
-                         CELL_SIZE/2, CELL_SIZE/3);
+            Graphics2D g2d = (Graphics2D)image.getGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, 
+                               RenderingHints.VALUE_ANTIALIAS_ON);
+            return g2d;
         }
         
-        private void drawHoverIndicator(Graphics2D g2d)
+        private Image discImage(char player)
         {
-            if (hoverColumn >= 0 && hoverColumn < GameModel.COLS && 
+            return (player == GameModel.RED) ? redDisc : blackDisc;
+        }
+        
+        // Row 0 is the hover strip above the board
+        private void drawSprite(Graphics g, Image sprite, int row, int col)
+        {
+            g.drawImage(sprite, col * cellSize, row * cellSize, null);
+        }
+        
+        private void drawHoverIndicator(Graphics g)
+        {
+            int column = visibleHoverColumn();
+            if (column >= 0)
+            {
+                drawSprite(g, hoverDisc, 0, column);
+            }
+        }
+        
+        // The column showing the hover disc, or -1 when none should
+        private int visibleHoverColumn()
+        {
+            if (hoverColumn >= 0 && hoverColumn < cols && 
+                controller.isAcceptingInput() &&
                 !controller.getModel().isColumnFull(hoverColumn))
             {
-                int x = hoverColumn * CELL_SIZE + CELL_SIZE/2;
-                int y = CELL_SIZE/2;
-                
-                g2d.setColor(new Color(0, 122, 255, 100));
-                g2d.fillOval(x - CELL_SIZE/3, y - CELL_SIZE/3, 
-                            CELL_SIZE*2/3, CELL_SIZE*2/3);
+                return hoverColumn;
             }
+            return -1;
         }
         
-        private void drawAnimatedDisc(Graphics2D g2d)
+        private void drawAnimatedDisc(Graphics g)
         {
-            if (animatedColumn >= 0 && animatedColumn < GameModel.COLS)
+            if (animatedColumn >= 0)
             {
-                drawDisc(g2d, 0, animatedColumn, controller.getCurrentPlayer());
+                g.drawImage(discImage(animatedPlayer), animatedColumn * cellSize, animatedY, null);
             }
         }
         
         public void setHoverColumn(int column)
         {
             hoverColumn = column;
-            repaint();
+            refreshHover();
+        }
+        
+        // Repaints the hover strip cells whose disc appears or disappears
+        private void refreshHover()
+        {
+            int column = visibleHoverColumn();
+            if (column != shownHoverColumn)
+            {
+                repaintCell(0, shownHoverColumn);
+                shownHoverColumn = column;
+                repaintCell(0, shownHoverColumn);
+            }
+        }
+        
+        // Repaints the cells that differ from what is on screen, and the
+        // hover disc if whether input is accepted has changed it. A single new
+        // disc is dropped into place; anything else, such as a new game,
+        // is shown at once.
+        void refresh()
+        {
+            GameModel model = controller.getModel();
+            int changes = 0;
+            int dropRow = -1;
+            int dropCol = -1;
+            for (int row = 0; row < rows; row++)
+            {
+                for (int col = 0; col < cols; col++)
+                {
+                    char cell = model.getCell(row, col);
+                    if (shownCells[row * cols + col] != cell)
+                    {
+                        if (shownCells[row * cols + col] == GameModel.EMPTY)
+                        {
+                            dropRow = row;
+                            dropCol = col;
+                        }
+                        shownCells[row * cols + col] = cell;
+                        repaintCell(row + 1, col);
+                        changes++;
+                    }
+                }
+            }
+            refreshHover();
+            
+            if (changes == 1 && dropRow >= 0)
+            {
+                startDrop(dropRow, dropCol, model.getCell(dropRow, dropCol));
+            }
+            else if (changes > 0)
+            {
+                finishDrop();
+            }
+        }
+        
+        // The strip of the falling disc's column between two positions
+        void repaintDrop(int fromY, int toY)
+        {
+            repaint(animatedColumn * cellSize, fromY, cellSize, toY - fromY + cellSize);
+        }
+        
+        private void repaintCell(int row, int col)
+        {
+            if (col >= 0 && col < cols)
+            {
+                repaint(col * cellSize, row * cellSize, cellSize, cellSize);
+            }
         }
     }
     
@@ -164,8 +425,8 @@ public class GameView extends JFrame
         @Override
         public void mouseClicked(MouseEvent e)
         {
-            int column = e.getX() / CELL_SIZE;
-            if (column >= 0 && column < GameModel.COLS)
+            int column = e.getX() / cellSize;
+            if (column >= 0 && column < cols)
             {
                 controller.makeMove(column);
             }
@@ -174,22 +435,124 @@ public class GameView extends JFrame
         @Override
         public void mouseMoved(MouseEvent e)
         {
-            int column = e.getX() / CELL_SIZE;
-            ((BoardPanel)boardPanel).setHoverColumn(column);
+            boardPanel.setHoverColumn(e.getX() / cellSize);
+        }
+        
+        @Override
+        public void mouseExited(MouseEvent e)
+        {
+            boardPanel.setHoverColumn(-1);
+        }
+    }
+    
+    // Runs the action once the falling disc has landed, or now if none is
+    // falling, so a move found while a disc is still falling is not shown
+    // on top of it
+    public void runAfterDrop(Runnable action)
+    {
+        if (animatedColumn < 0)
+        {
+            action.run();
+        }
+        else
+        {
+            afterDrop = action;
+        }
+    }
+    
+    private void startDrop(int row, int col, char player)
+    {
+        // A disc still falling lands at once
+        finishDrop();
+        
+        animatedColumn = col;
+        animatedRow = row;
+        animatedPlayer = player;
+        animatedY = 0;
+        targetY = (row + 1) * cellSize;
+        dropStartNanos = System.nanoTime();
+        frameTimer.restart();
+    }
+    
+    private void nextFrame()
+    {
+        if (animatedColumn < 0)
+        {
+            frameTimer.stop();
+            return;
+        }
+        
+        long elapsed = System.nanoTime() - dropStartNanos;
+        int y = (int)Math.min(targetY, dropAcceleration * elapsed * elapsed / 2);
+        boardPanel.repaintDrop(animatedY, y);
+        animatedY = y;
+        if (y >= targetY)
+        {
+            finishDrop();
+        }
+    }
+    
+    private void finishDrop()
+    {
+        if (animatedColumn < 0)
+        {
+            return;
+        }
+        
+        frameTimer.stop();
+        boardPanel.repaintDrop(animatedY, targetY);
+        animatedColumn = -1;
+        
+        // Queued rather than run here, as the action usually plays a move
+        // and so starts the next drop
+        if (afterDrop != null)
+        {
+            SwingUtilities.invokeLater(afterDrop);
+            afterDrop = null;
         }
     }
     
     public void updateBoard()
     {
-        boardPanel.repaint();
+        boardPanel.refresh();
+        updateStatus();
+    }
+    
+    // Refreshes the status label with search progress until the move arrives
+    public void showThinking()
+    {
+        if (thinkingTimer == null)
+        {
+            thinkingTimer = new Timer(100, e -> updateStatus());
+        }
+        thinkingTimer.start();
         updateStatus();
+        boardPanel.refresh();
     }
     
     private void updateStatus()
     {
+        if (controller.isThinking())
+        {
+            String computerName = (controller.getCurrentPlayer() == GameModel.RED) ? 
+                controller.getPlayer1Name() : controller.getPlayer2Name();
+            statusLabel.setText(String.format("%s is thinking... %.1f s, %,d positions", 
+                computerName, 
+                controller.getThinkingMillis() / 1000.0, 
+                controller.getThinkingNodes()));
+            return;
+        }
+        
+        if (thinkingTimer != null)
+        {
+            thinkingTimer.stop();
+        }
+        
         String playerName = (controller.getCurrentPlayer() == GameModel.RED) ? 
             controller.getPlayer1Name() : controller.getPlayer2Name();
-        statusLabel.setText(playerName + "'s turn");
+        statusLabel.setText(controller.isPaused() ? 
+            "Paused, " + playerName + " to move" : 
+            playerName + "'s turn");
     }
     
     public void showWinner(char winner)
@@ -200,6 +563,7 @@ public class GameView extends JFrame
         
         Timer closeTimer = new Timer(1000, e -> 
         {
+            controller.shutdown();
             dispose();
             new GameEndWindow(winnerName).setVisible(true);
         });
@@ -213,6 +577,7 @@ public class GameView extends JFrame
         
         Timer closeTimer = new Timer(1000, e -> 
         {
+            controller.shutdown();
             dispose();
             new GameEndWindow("No one - It's a tie!").setVisible(true);
         });
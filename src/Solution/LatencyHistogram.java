@@ -0,0 +1,128 @@
+package Solution;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Thread-safe latency recorder with fixed memory.
+//
+// Values go into a log-linear histogram of microseconds: each power of two
+// is split into eight buckets, so percentiles are accurate to within 12.5%
+// while recording stays a few atomic adds.
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = 64 * SUB_BUCKETS;
+    
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    
+    public void record(long nanos)
+    {
+        long micros = Math.max(nanos, 0) / 1000;
+        count.increment();
+        totalNanos.add(nanos);
+        maxMicros.accumulateAndGet(micros, Math::max);
+        buckets.incrementAndGet(bucketOf(micros));
+    }
+    
+    public long getCount()
+    {
+        return count.sum();
+    }
+    
+    public long getTotalNanos()
+    {
+        return totalNanos.sum();
+    }
+    
+    public double getMeanMillis()
+    {
+        long recorded = count.sum();
+        return (recorded == 0) ? 0.0 : totalNanos.sum() / 1_000_000.0 / recorded;
+    }
+    
+    public double getMaxMillis()
+    {
+        return maxMicros.get() / 1000.0;
+    }
+    
+    // Upper edge of the bucket holding the given share of recorded values
+    public double getPercentileMillis(double fraction)
+    {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0)
+        {
+            return 0.0;
+        }
+        
+        long target = (long)Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += counts[i];
+            if (seen >= target)
+            {
+                return Math.min(bucketLimit(i), maxMicros.get()) / 1000.0;
+            }
+        }
+        return maxMicros.get() / 1000.0;
+    }
+    
+    public void reset()
+    {
+        count.reset();
+        totalNanos.reset();
+        maxMicros.set(0);
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            buckets.set(i, 0);
+        }
+    }
+    
+    @Override
+    public String toString()
+    {
+        return String.format("n=%d mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                             getCount(),
+                             getMeanMillis(),
+                             getPercentileMillis(0.50),
+                             getPercentileMillis(0.90),
+                             getPercentileMillis(0.99),
+                             getMaxMillis());
+    }
+    
+    // Values below SUB_BUCKETS get a bucket each; above that, the exponent
+    // picks a group of SUB_BUCKETS and the next bits below the top one pick
+    // the bucket within it
+    private static int bucketOf(long micros)
+    {
+        if (micros < SUB_BUCKETS)
+        {
+            return (int)micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int mantissa = (int)(micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + mantissa;
+    }
+    
+    private static long bucketLimit(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long low = (long)(SUB_BUCKETS | (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BUCKET_BITS);
+        return low + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package Solution;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read-only table of precomputed opening moves, written by OpeningBookBuilder.
+//
+// The file is memory-mapped rather than read, so lookups go straight to the
+// page cache and several JVMs on one host share the same physical pages.
+//
+// Layout (big-endian): magic, version, rows, cols, plies, entry count as ints,
+// then the sorted position keys as longs, then one move byte per key.
+public final class OpeningBook
+{
+    static final int MAGIC = 0x43344B42;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 6 * Integer.BYTES;
+    
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+    private final int plies;
+    private final int movesOffset;
+    
+    private OpeningBook(MappedByteBuffer buffer) throws IOException
+    {
+        this.buffer = buffer;
+        
+        if (buffer.capacity() < HEADER_SIZE || 
+            buffer.getInt(0) != MAGIC || 
+            buffer.getInt(4) != VERSION)
+        {
+            throw new IOException("Not an opening book");
+        }
+        if (buffer.getInt(8) != GameModel.ROWS || buffer.getInt(12) != GameModel.COLS)
+        {
+            throw new IOException("Opening book is for a different board size");
+        }
+        
+        plies = buffer.getInt(16);
+        entryCount = buffer.getInt(20);
+        movesOffset = HEADER_SIZE + entryCount * Long.BYTES;
+        
+        if (entryCount < 0 || buffer.capacity() != movesOffset + entryCount)
+        {
+            throw new IOException("Truncated opening book");
+        }
+    }
+    
+    public static OpeningBook open(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            // The mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+    
+    // Returns the book move for a key from AIEngine.positionKey, or NO_MOVE
+    public int lookup(long key)
+    {
+        int low = 0;
+        int high = entryCount - 1;
+        
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            long midKey = buffer.getLong(HEADER_SIZE + mid * Long.BYTES);
+            if (midKey < key)
+            {
+                low = mid + 1;
+            }
+            else if (midKey > key)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return buffer.get(movesOffset + mid);
+            }
+        }
+        
+        return TranspositionTable.NO_MOVE;
+    }
+    
+    public int size()
+    {
+        return entryCount;
+    }
+    
+    public int getPlies()
+    {
+        return plies;
+    }
+}
\ No newline at end of file
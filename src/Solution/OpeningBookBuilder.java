@@ -0,0 +1,137 @@
+package Solution;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Build-time tool: searches every position up to the given number of plies
+// and writes the chosen moves as an OpeningBook.
+//
+// Usage: OpeningBookBuilder [output file] [plies] [search depth]
+public final class OpeningBookBuilder
+{
+    public static final int DEFAULT_PLIES = 4;
+    public static final int DEFAULT_DEPTH = 12;
+    
+    private final int plies;
+    private final GameModel model = new GameModel();
+    private final Set<Long> seen = new HashSet<>();
+    private final List<GameModel> positions = new ArrayList<>();
+    private final List<Character> players = new ArrayList<>();
+    
+    private OpeningBookBuilder(int plies)
+    {
+        this.plies = plies;
+    }
+    
+    public static void main(String[] args) throws IOException
+    {
+        Path output = Paths.get(args.length > 0 ? args[0] : GameConfig.DEFAULT_OPENING_BOOK);
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PLIES;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DEPTH;
+        
+        long start = System.currentTimeMillis();
+        int entries = build(output, plies, depth);
+        System.out.printf("Wrote %d positions to %s in %.1f s%n", 
+                          entries, output, (System.currentTimeMillis() - start) / 1000.0);
+    }
+    
+    public static int build(Path output, int plies, int depth) throws IOException
+    {
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        builder.collect(GameModel.RED, 0);
+        
+        int count = builder.positions.size();
+        long[] keys = new long[count];
+        byte[] moves = new byte[count];
+        
+        GameModel searchModel = new GameModel();
+        AIEngine engine = new AIEngine(searchModel, depth);
+        for (int i = 0; i < count; i++)
+        {
+            char player = builder.players.get(i);
+            searchModel.copyFrom(builder.positions.get(i));
+            keys[i] = AIEngine.positionKey(searchModel, player);
+            moves[i] = (byte)engine.findBestMove(player);
+        }
+        
+        sortByKey(keys, moves);
+        write(output, plies, keys, moves);
+        return count;
+    }
+    
+    // Records each distinct position that is still in play, up to the ply limit
+    private void collect(char player, int ply)
+    {
+        if (ply > plies || !seen.add(AIEngine.positionKey(model, player)))
+        {
+            return;
+        }
+        
+        positions.add(new GameModel(model));
+        players.add(player);
+        
+        char next = (player == GameModel.RED) ? GameModel.BLACK : GameModel.RED;
+        for (int col = 0; col < GameModel.COLS; col++)
+        {
+            if (model.isColumnFull(col))
+            {
+                continue;
+            }
+            
+            model.makeMove(col, player);
+            if (model.checkWinnerAt(col) == GameModel.EMPTY && !model.isBoardFull())
+            {
+                collect(next, ply + 1);
+            }
+            model.undoMove(col);
+        }
+    }
+    
+    private static void sortByKey(long[] keys, byte[] moves)
+    {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        
+        long[] sortedKeys = new long[keys.length];
+        byte[] sortedMoves = new byte[moves.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            sortedKeys[i] = keys[order[i]];
+            sortedMoves[i] = moves[order[i]];
+        }
+        System.arraycopy(sortedKeys, 0, keys, 0, keys.length);
+        System.arraycopy(sortedMoves, 0, moves, 0, moves.length);
+    }
+    
+    private static void write(Path output, int plies, long[] keys, byte[] moves) throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(Files.newOutputStream(output))))
+        {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(GameModel.ROWS);
+            out.writeInt(GameModel.COLS);
+            out.writeInt(plies);
+            out.writeInt(keys.length);
+            for (long key : keys)
+            {
+                out.writeLong(key);
+            }
+            out.write(moves);
+        }
+    }
+}
\ No newline at end of file
@@ -6,23 +6,38 @@ import java.awt.event.*;
 
 public class PlayerSelectionWindow extends JFrame
 {
+    // Columns, rows and connect length of each board choice
+    private static final String[] BOARD_NAMES = {
+        "7 x 6, Connect 4", 
+        "8 x 7, Connect 4", 
+        "9 x 7, Connect 4", 
+        "10 x 10, Connect 5"
+    };
+    private static final int[][] BOARD_SIZES = {
+        {7, 6, 4}, 
+        {8, 7, 4}, 
+        {9, 7, 4}, 
+        {10, 10, 5}
+    };
+    
     private final JTextField player1Field;
     private final JTextField player2Field;
     private final JComboBox<String> gameModeBox;
     private final JComboBox<String> difficultyBox;
+    private final JComboBox<String> boardBox;
     private final JPanel difficultyPanel;
     
     public PlayerSelectionWindow()
     {
         setTitle("Connect Four Setup");
-        setSize(400, 350);
+        setSize(400, 400);
         setResizable(false);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
         getContentPane().setBackground(new Color(242, 242, 247));
         
         JPanel contentPanel = new JPanel();
-        contentPanel.setLayout(new GridLayout(6, 1, 10, 10));
+        contentPanel.setLayout(new GridLayout(7, 1, 10, 10));
         contentPanel.setBorder(BorderFactory.createEmptyBorder(20, 30, 20, 30));
         contentPanel.setBackground(new Color(242, 242, 247));
         
@@ -33,19 +48,24 @@ public class PlayerSelectionWindow extends JFrame
         gameModeBox = new JComboBox<>(new String[]{
             "Human vs Human", 
             "Human vs Computer", 
-            "Computer vs Human"
+            "Computer vs Human", 
+            "Computer vs Computer"
         });
         gameModeBox.setFont(new Font("SF Pro Text", Font.PLAIN, 14));
         gameModeBox.addActionListener(this::updateDifficultyVisibility);
         contentPanel.add(createInputPanel("Game Mode:", gameModeBox));
         
+        boardBox = new JComboBox<>(BOARD_NAMES);
+        boardBox.setFont(new Font("SF Pro Text", Font.PLAIN, 14));
+        contentPanel.add(createInputPanel("Board:", boardBox));
+        
         player1Field = createTextField("Player 1");
         contentPanel.add(createInputPanel("Player 1 Name:", player1Field));
         
         player2Field = createTextField("Player 2");
         contentPanel.add(createInputPanel("Player 2 Name:", player2Field));
         
-        difficultyBox = new JComboBox<>(new String[]{"Easy", "Medium", "Hard"});
+        difficultyBox = new JComboBox<>(new String[]{"Easy", "Medium", "Hard", "Perfect"});
         difficultyBox.setFont(new Font("SF Pro Text", Font.PLAIN, 14));
         difficultyPanel = createInputPanel("Computer Difficulty:", difficultyBox);
         difficultyPanel.setVisible(false);
@@ -127,6 +147,13 @@ public class PlayerSelectionWindow extends JFrame
             ((JLabel)((JPanel)player1Field.getParent()).getComponent(0)).setText("Computer Name:");
             player1Field.setText("Computer");
         }
+        else if (selectedMode.equals("Computer vs Computer"))
+        {
+            ((JLabel)((JPanel)player1Field.getParent()).getComponent(0)).setText("Computer 1 Name:");
+            ((JLabel)((JPanel)player2Field.getParent()).getComponent(0)).setText("Computer 2 Name:");
+            player1Field.setText("Computer 1");
+            player2Field.setText("Computer 2");
+        }
         else
         {
             ((JLabel)((JPanel)player1Field.getParent()).getComponent(0)).setText("Player 1 Name:");
@@ -159,17 +186,24 @@ public class PlayerSelectionWindow extends JFrame
                 gameType = GameConfig.COMPUTER_HUMAN;
                 difficultyLevel = getSelectedDifficulty();
                 break;
+            case "Computer vs Computer":
+                gameType = GameConfig.COMPUTER_COMPUTER;
+                difficultyLevel = getSelectedDifficulty();
+                break;
             default:
                 gameType = GameConfig.HUMAN_HUMAN;
         }
         
         GameConfig config = new GameConfig(gameType, difficultyLevel);
+        int[] board = BOARD_SIZES[boardBox.getSelectedIndex()];
+        config.setBoardSize(board[1], board[0], board[2]);
         GameController controller = new GameController(config);
         controller.setPlayerNames(player1Name, player2Name);
         
         GameView view = new GameView(controller);
         controller.setView(view);
         view.setVisible(true);
+        controller.startNewGame();
         
         dispose();
     }
@@ -184,6 +218,8 @@ public class PlayerSelectionWindow extends JFrame
                 return GameConfig.INTERMEDIATE;
             case "Hard":
                 return GameConfig.EXPERT;
+            case "Perfect":
+                return GameConfig.PERFECT;
             default:
                 return GameConfig.INTERMEDIATE;
         }
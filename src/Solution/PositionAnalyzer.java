@@ -0,0 +1,277 @@
+package Solution;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Scores a stream of positions, one per line, written as the columns
+// played from an empty board, 1-based, red moving first. An empty line is
+// the empty board.
+//
+// Lines are read in batches and each batch is analysed on a worker thread
+// that keeps its own engine, and table, for the whole run. Results are
+// written in input order; at most a few batches per thread are in memory at
+// once, so input of any size runs in constant space.
+//
+// Each output line is the position, the best column (1-based), the score
+// from the side to move and where the score came from, tab separated:
+//   exact    the solver's score, positive for a win, larger when sooner
+//   search   the heuristic score, win/loss when a result is forced, or -
+//            when the time limit ended the search before its first depth
+//   final    the game is already over; no move or score
+//   invalid  the line is not a legal move sequence
+//
+// Usage: PositionAnalyzer [input file, or - for stdin] [--output FILE]
+//                         [--level L] [--time MS] [--threads N] [--batch N]
+public final class PositionAnalyzer
+{
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int BATCHES_PER_THREAD = 2;
+    
+    private final GameConfig config;
+    private final int threads;
+    private final int batchSize;
+    private final ThreadLocal<Worker> workers;
+    private long positions;
+    
+    public PositionAnalyzer(GameConfig config, int threads, int batchSize)
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("Invalid thread count");
+        }
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("Invalid batch size");
+        }
+        
+        this.config = config;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.workers = ThreadLocal.withInitial(Worker::new);
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        String input = "-";
+        String output = null;
+        int level = GameConfig.EXPERT;
+        long timeLimit = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batchSize = DEFAULT_BATCH_SIZE;
+        
+        for (int i = 0; i < args.length; i++)
+        {
+            String option = args[i];
+            if (!option.startsWith("--"))
+            {
+                input = option;
+                continue;
+            }
+            if (i + 1 == args.length)
+            {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option)
+            {
+                case "--output": output = value; break;
+                case "--level": level = Integer.parseInt(value); break;
+                case "--time": timeLimit = Long.parseLong(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--batch": batchSize = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        
+        GameConfig config = new GameConfig(GameConfig.COMPUTER_COMPUTER, level);
+        config.setMoveTimeLimit(timeLimit);
+        // Book moves carry no score, and one cache file cannot take
+        // appends from several workers. Each worker keeps a table of its own.
+        config.setOpeningBookPath(null);
+        config.setEndgameCachePath(null);
+        config.setAnalysisCachePath(null);
+        
+        PositionAnalyzer analyzer = new PositionAnalyzer(config, threads, batchSize);
+        long start = System.nanoTime();
+        try (Reader in = input.equals("-")
+                 ? new InputStreamReader(System.in, StandardCharsets.US_ASCII)
+                 : Files.newBufferedReader(Paths.get(input), StandardCharsets.US_ASCII);
+             Writer out = (output == null)
+                 ? new OutputStreamWriter(System.out, StandardCharsets.US_ASCII)
+                 : Files.newBufferedWriter(Paths.get(output), StandardCharsets.US_ASCII))
+        {
+            analyzer.analyze(in, out);
+        }
+        
+        // Reported on stderr so the results can be piped on
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.err.printf("Analyzed %,d positions in %.1f s (%,.1f positions/s)%n",
+                          analyzer.getPositionCount(), seconds, analyzer.getPositionCount() / seconds);
+    }
+    
+    public void analyze(Reader input, Writer output) throws IOException, InterruptedException
+    {
+        BufferedReader in = new BufferedReader(input);
+        BufferedWriter out = new BufferedWriter(output);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task ->
+        {
+            Thread thread = new Thread(task, "PositionAnalyzer worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        // Finished batches are written oldest first; once the window is full
+        // the reader waits for the oldest, which bounds memory and keeps order
+        ArrayDeque<Future<String[]>> pending = new ArrayDeque<>();
+        int window = threads * BATCHES_PER_THREAD;
+        try
+        {
+            List<String> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = in.readLine()) != null)
+            {
+                batch.add(line.trim());
+                if (batch.size() == batchSize)
+                {
+                    if (pending.size() == window)
+                    {
+                        write(pending.removeFirst(), out);
+                    }
+                    String[] lines = batch.toArray(new String[0]);
+                    pending.addLast(pool.submit(() -> workers.get().analyze(lines)));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty())
+            {
+                String[] lines = batch.toArray(new String[0]);
+                pending.addLast(pool.submit(() -> workers.get().analyze(lines)));
+            }
+            while (!pending.isEmpty())
+            {
+                write(pending.removeFirst(), out);
+            }
+            out.flush();
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+    
+    public long getPositionCount()
+    {
+        return positions;
+    }
+    
+    private void write(Future<String[]> batch, BufferedWriter out) throws IOException, InterruptedException
+    {
+        String[] results;
+        try
+        {
+            results = batch.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        }
+        
+        for (String result : results)
+        {
+            out.write(result);
+            out.newLine();
+        }
+        positions += results.length;
+    }
+    
+    // One engine per worker thread, reused for every batch it takes
+    private final class Worker
+    {
+        private final GameModel model = new GameModel();
+        private final AIEngine engine = GameController.createEngine(config, model, null, null);
+        
+        String[] analyze(String[] lines)
+        {
+            String[] results = new String[lines.length];
+            for (int i = 0; i < lines.length; i++)
+            {
+                results[i] = lines[i] + '\t' + analyze(lines[i]);
+            }
+            return results;
+        }
+        
+        private String analyze(String moves)
+        {
+            if (!load(moves))
+            {
+                return "-\t-\tinvalid";
+            }
+            if (model.checkWinner() != GameModel.EMPTY || model.isBoardFull())
+            {
+                return "-\t-\tfinal";
+            }
+            
+            char player = (model.getMoveCount() % 2 == 0) ? GameModel.RED : GameModel.BLACK;
+            engine.newPosition();
+            int col = engine.findBestMove(player);
+            SolverResult solved = engine.getSolverResult();
+            if (solved != null)
+            {
+                return (col + 1) + "\t" + solved.getScore() + "\texact";
+            }
+            
+            // A time limit may stop the search before its first iteration ends
+            int score = engine.getSearchScore();
+            String value;
+            if (engine.getDepthReached() == 0)
+            {
+                value = "-";
+            }
+            else if (score == Integer.MAX_VALUE || score == Integer.MIN_VALUE)
+            {
+                value = ((score == Integer.MAX_VALUE) == (player == GameModel.RED)) ? "win" : "loss";
+            }
+            else
+            {
+                value = Integer.toString((player == GameModel.RED) ? score : -score);
+            }
+            return (col + 1) + "\t" + value + "\tsearch";
+        }
+        
+        // False when a column is out of range or full, or the game ended
+        // before the last move
+        private boolean load(String moves)
+        {
+            model.reset();
+            for (int i = 0; i < moves.length(); i++)
+            {
+                int col = moves.charAt(i) - '1';
+                if (col < 0 || col >= GameModel.COLS || model.isColumnFull(col))
+                {
+                    return false;
+                }
+                model.makeMove(col, (i % 2 == 0) ? GameModel.RED : GameModel.BLACK);
+                if (i < moves.length() - 1 && model.checkWinnerAt(col) != GameModel.EMPTY)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
\ No newline at end of file
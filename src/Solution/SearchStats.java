@@ -0,0 +1,97 @@
+package Solution;
+
+// Counters from a single findBestMove call. Moves answered from the opening
+// book, the endgame cache or pondering report no nodes and a short elapsed
+// time; the solver reports its own node count but no cutoffs or probes.
+public final class SearchStats
+{
+    private final long nodes;
+    private final long elapsedNanos;
+    private final int depthReached;
+    private final long betaCutoffs;
+    private final long firstMoveCutoffs;
+    private final long tableProbes;
+    private final long tableHits;
+    
+    public SearchStats(long nodes, long elapsedNanos, int depthReached, long betaCutoffs,
+                       long firstMoveCutoffs, long tableProbes, long tableHits)
+    {
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.depthReached = depthReached;
+        this.betaCutoffs = betaCutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+    }
+    
+    public long getNodes()
+    {
+        return nodes;
+    }
+    
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+    
+    public double getElapsedMillis()
+    {
+        return elapsedNanos / 1_000_000.0;
+    }
+    
+    public double getNodesPerSecond()
+    {
+        return (elapsedNanos == 0) ? 0.0 : nodes * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    public int getDepthReached()
+    {
+        return depthReached;
+    }
+    
+    public long getBetaCutoffs()
+    {
+        return betaCutoffs;
+    }
+    
+    public long getFirstMoveCutoffs()
+    {
+        return firstMoveCutoffs;
+    }
+    
+    // Share of cutoffs caused by the first move tried, a measure of move ordering
+    public double getFirstMoveCutoffRate()
+    {
+        return (betaCutoffs == 0) ? 0.0 : (double)firstMoveCutoffs / betaCutoffs;
+    }
+    
+    public long getTableProbes()
+    {
+        return tableProbes;
+    }
+    
+    public long getTableHits()
+    {
+        return tableHits;
+    }
+    
+    // Zero when the transposition table was not probed
+    public double getTableHitRate()
+    {
+        return (tableProbes == 0) ? 0.0 : (double)tableHits / tableProbes;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return String.format("%,d nodes in %.1f ms (%,.0f nodes/s), depth %d, %,d cutoffs (%.1f%% first move), %.1f%% table hits",
+                             nodes,
+                             getElapsedMillis(),
+                             getNodesPerSecond(),
+                             depthReached,
+                             betaCutoffs,
+                             getFirstMoveCutoffRate() * 100,
+                             getTableHitRate() * 100);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,474 @@
+package Solution;
+
+import java.util.Arrays;
+
+// Exact solver for the standard 7x6 board: negamax over bitboards with
+// null-window probes that narrow the score to its exact value, plus a
+// transposition table of upper bounds. A position and its mirror image
+// share a table entry, and where the two are the same position only the
+// moves up to the center column are searched.
+//
+// Scores follow the usual solver convention, from the side to move: zero for
+// a draw, positive when it wins and larger the sooner it wins, negative when
+// it loses. A search budget keeps the call bounded; when it runs out, solve
+// returns null instead of a guess.
+public final class Solver
+{
+    public static final int DEFAULT_TABLE_SIZE = 8388593;
+    public static final int ENDGAME_TABLE_SIZE = 1048573;
+    
+    private static final int WIDTH = GameModel.COLS;
+    private static final int HEIGHT = GameModel.ROWS;
+    private static final int CELLS = WIDTH * HEIGHT;
+    private static final int MIN_SCORE = -CELLS / 2 + 3;
+    private static final int MAX_SCORE = (CELLS + 1) / 2 - 3;
+    
+    private static final long BOTTOM_MASK = bottomMask();
+    private static final long BOARD_MASK = BOTTOM_MASK * ((1L << HEIGHT) - 1);
+    private static final long LEFT_HALF_MASK = (1L << ((WIDTH / 2 + 1) * (HEIGHT + 1))) - 1;
+    private static final int[] COLUMN_ORDER = new int[WIDTH];
+    
+    static
+    {
+        for (int i = 0; i < WIDTH; i++)
+        {
+            COLUMN_ORDER[i] = WIDTH / 2 + (1 - 2 * (i % 2)) * (i + 1) / 2;
+        }
+    }
+    
+    // Direct-mapped table; with a prime size above 2^17 the slot index and
+    // the low 32 key bits together identify a 49-bit key exactly
+    private final int[] tableKeys;
+    private final byte[] tableValues;
+    
+    // Position being searched, from the point of view of the side to move
+    private long current;
+    private long mask;
+    private int moves;
+    
+    private final long[][] sortedMoves = new long[CELLS + 1][WIDTH];
+    private final int[][] sortedScores = new int[CELLS + 1][WIDTH];
+    
+    private long nodeCount;
+    private long nodeLimit;
+    private long timeLimitMillis;
+    private volatile boolean stopRequested;
+    private boolean aborted;
+    
+    public Solver()
+    {
+        this(DEFAULT_TABLE_SIZE);
+    }
+    
+    public Solver(int tableSize)
+    {
+        if (tableSize <= 1 << 17)
+        {
+            throw new IllegalArgumentException("Solver table size must exceed 2^17");
+        }
+        
+        tableKeys = new int[tableSize];
+        tableValues = new byte[tableSize];
+    }
+    
+    // Zero disables the corresponding budget
+    public void setTimeLimit(long timeLimitMillis)
+    {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+    
+    public void setNodeLimit(long nodeLimit)
+    {
+        this.nodeLimit = nodeLimit;
+    }
+    
+    // May be called from another thread; solve then returns null, and so
+    // does every later solve until reset
+    public void stop()
+    {
+        stopRequested = true;
+    }
+    
+    // Clears a stop, before the owner starts the work the next one is for
+    public void reset()
+    {
+        stopRequested = false;
+    }
+    
+    public void clear()
+    {
+        Arrays.fill(tableKeys, 0);
+        Arrays.fill(tableValues, (byte)0);
+    }
+    
+    public long getNodeCount()
+    {
+        return nodeCount;
+    }
+    
+    // Solves the position for the given side to move, or returns null when
+    // the budget runs out first. The model must not already have a winner.
+    public SolverResult solve(GameModel model, char player)
+    {
+        return solve(model, player, Long.MAX_VALUE);
+    }
+    
+    // As solve, but also gives up at the given wall-clock time, whichever of
+    // that and the time limit comes first
+    public SolverResult solve(GameModel model, char player, long deadlineMillis)
+    {
+        if (!model.isStandardSize())
+        {
+            throw new IllegalArgumentException("The solver only plays the standard board");
+        }
+        
+        long stopAt = (timeLimitMillis > 0) ? System.currentTimeMillis() + timeLimitMillis : Long.MAX_VALUE;
+        stopAt = Math.min(stopAt, deadlineMillis);
+        aborted = false;
+        nodeCount = 0;
+        
+        load(model, player);
+        
+        // Score each legal move by solving the position after it. Columns
+        // are tried center-out, so of two mirrored moves with the same score
+        // the left one is kept, with or without the right one.
+        int bestColumn = -1;
+        int bestScore = Integer.MIN_VALUE;
+        long possible = possible();
+        if (mirror(current + mask) == current + mask)
+        {
+            possible &= LEFT_HALF_MASK;
+        }
+        for (int col : COLUMN_ORDER)
+        {
+            long move = possible & columnMask(col);
+            if (move == 0)
+            {
+                continue;
+            }
+            
+            if ((winningPosition() & move) != 0)
+            {
+                int score = (CELLS + 1 - moves) / 2;
+                return new SolverResult(score, col, 1);
+            }
+            
+            long savedCurrent = current;
+            long savedMask = mask;
+            play(move);
+            int score = -solveCurrent(stopAt);
+            current = savedCurrent;
+            mask = savedMask;
+            moves--;
+            
+            if (aborted)
+            {
+                return null;
+            }
+            if (score > bestScore)
+            {
+                bestScore = score;
+                bestColumn = col;
+            }
+        }
+        
+        return new SolverResult(bestScore, bestColumn, pliesToEnd(bestScore, moves));
+    }
+    
+    private int solveCurrent(long stopAt)
+    {
+        if (moves == CELLS)
+        {
+            return 0;
+        }
+        if (canWinNext())
+        {
+            return (CELLS + 1 - moves) / 2;
+        }
+        
+        int min = -(CELLS - moves) / 2;
+        int max = (CELLS + 1 - moves) / 2;
+        
+        // Null-window probes, biased towards zero to settle win/draw/loss early
+        while (min < max)
+        {
+            int med = min + (max - min) / 2;
+            if (med <= 0 && min / 2 < med)
+            {
+                med = min / 2;
+            }
+            else if (med >= 0 && max / 2 > med)
+            {
+                med = max / 2;
+            }
+            
+            int result = negamax(med, med + 1, stopAt);
+            if (aborted)
+            {
+                return 0;
+            }
+            if (result <= med)
+            {
+                max = result;
+            }
+            else
+            {
+                min = result;
+            }
+        }
+        return min;
+    }
+    
+    private int negamax(int alpha, int beta, long stopAt)
+    {
+        nodeCount++;
+        if ((nodeCount & 4095) == 0 &&
+            (stopRequested || 
+             (nodeLimit > 0 && nodeCount >= nodeLimit) || 
+             System.currentTimeMillis() >= stopAt))
+        {
+            aborted = true;
+        }
+        if (aborted)
+        {
+            return 0;
+        }
+        
+        long next = possibleNonLosingMoves();
+        if (next == 0)
+        {
+            return -(CELLS - moves) / 2;
+        }
+        if (moves >= CELLS - 2)
+        {
+            return 0;
+        }
+        
+        int min = -(CELLS - 2 - moves) / 2;
+        if (alpha < min)
+        {
+            alpha = min;
+            if (alpha >= beta)
+            {
+                return alpha;
+            }
+        }
+        
+        int max = (CELLS - 1 - moves) / 2;
+        long key = current + mask;
+        long mirroredKey = mirror(key);
+        if (mirroredKey == key)
+        {
+            next &= LEFT_HALF_MASK;
+        }
+        key = Math.min(key, mirroredKey);
+        int stored = probe(key);
+        if (stored != 0)
+        {
+            max = stored + MIN_SCORE - 1;
+        }
+        if (beta > max)
+        {
+            beta = max;
+            if (alpha >= beta)
+            {
+                return beta;
+            }
+        }
+        
+        int count = sortMoves(next);
+        long[] ordered = sortedMoves[moves];
+        for (int i = 0; i < count; i++)
+        {
+            long savedCurrent = current;
+            long savedMask = mask;
+            play(ordered[i]);
+            int score = -negamax(-beta, -alpha, stopAt);
+            current = savedCurrent;
+            mask = savedMask;
+            moves--;
+            
+            if (aborted)
+            {
+                return 0;
+            }
+            if (score >= beta)
+            {
+                return score;
+            }
+            if (score > alpha)
+            {
+                alpha = score;
+            }
+        }
+        
+        store(key, alpha - MIN_SCORE + 1);
+        return alpha;
+    }
+    
+    // Orders moves by how many winning spots they create, center-out on ties
+    private int sortMoves(long next)
+    {
+        long[] ordered = sortedMoves[moves];
+        int[] scores = sortedScores[moves];
+        int count = 0;
+        
+        for (int i = WIDTH - 1; i >= 0; i--)
+        {
+            long move = next & columnMask(COLUMN_ORDER[i]);
+            if (move == 0)
+            {
+                continue;
+            }
+            
+            int score = Long.bitCount(computeWinningPosition(current | move, mask));
+            int j = count++;
+            while (j > 0 && scores[j - 1] < score)
+            {
+                ordered[j] = ordered[j - 1];
+                scores[j] = scores[j - 1];
+                j--;
+            }
+            ordered[j] = move;
+            scores[j] = score;
+        }
+        
+        return count;
+    }
+    
+    private void load(GameModel model, char player)
+    {
+        char opponent = (player == GameModel.RED) ? GameModel.BLACK : GameModel.RED;
+        current = model.getPlayerBoard(player);
+        mask = current | model.getPlayerBoard(opponent);
+        moves = model.getMoveCount();
+    }
+    
+    private void play(long move)
+    {
+        current ^= mask;
+        mask |= move;
+        moves++;
+    }
+    
+    private long possible()
+    {
+        return (mask + BOTTOM_MASK) & BOARD_MASK;
+    }
+    
+    private boolean canWinNext()
+    {
+        return (winningPosition() & possible()) != 0;
+    }
+    
+    private long winningPosition()
+    {
+        return computeWinningPosition(current, mask);
+    }
+    
+    private long opponentWinningPosition()
+    {
+        return computeWinningPosition(current ^ mask, mask);
+    }
+    
+    // Moves that do not hand the opponent an immediate win; zero if every move loses
+    private long possibleNonLosingMoves()
+    {
+        long possibleMask = possible();
+        long opponentWin = opponentWinningPosition();
+        long forcedMoves = possibleMask & opponentWin;
+        if (forcedMoves != 0)
+        {
+            if ((forcedMoves & (forcedMoves - 1)) != 0)
+            {
+                return 0;
+            }
+            possibleMask = forcedMoves;
+        }
+        return possibleMask & ~(opponentWin >>> 1);
+    }
+    
+    // Empty cells that would complete four in a row for the given discs
+    private static long computeWinningPosition(long position, long mask)
+    {
+        // Vertical
+        long result = (position << 1) & (position << 2) & (position << 3);
+        
+        result |= lineWins(position, HEIGHT + 1);
+        result |= lineWins(position, HEIGHT);
+        result |= lineWins(position, HEIGHT + 2);
+        
+        return result & (BOARD_MASK ^ mask);
+    }
+    
+    private static long lineWins(long position, int shift)
+    {
+        long pair = (position << shift) & (position << 2 * shift);
+        long result = pair & (position << 3 * shift);
+        result |= pair & (position >>> shift);
+        pair = (position >>> shift) & (position >>> 2 * shift);
+        result |= pair & (position << shift);
+        result |= pair & (position >>> 3 * shift);
+        return result;
+    }
+    
+    private int probe(long key)
+    {
+        int index = (int)(key % tableKeys.length);
+        return (tableKeys[index] == (int)key) ? tableValues[index] : 0;
+    }
+    
+    private void store(long key, int value)
+    {
+        int index = (int)(key % tableKeys.length);
+        tableKeys[index] = (int)key;
+        tableValues[index] = (byte)value;
+    }
+    
+    // Reverses the column order of a key. Each column's discs and the carry
+    // of adding them to the mask stay within its own bits.
+    private static long mirror(long key)
+    {
+        long mirrored = 0;
+        for (int left = 0, right = WIDTH - 1; left <= right; left++, right--)
+        {
+            int distance = (right - left) * (HEIGHT + 1);
+            long leftMask = columnMask(left) | (1L << (left * (HEIGHT + 1) + HEIGHT));
+            mirrored |= ((key >>> distance) & leftMask) | ((key & leftMask) << distance);
+        }
+        return mirrored;
+    }
+    
+    private static long columnMask(int col)
+    {
+        return ((1L << HEIGHT) - 1) << (col * (HEIGHT + 1));
+    }
+    
+    private static long bottomMask()
+    {
+        long bottom = 0;
+        for (int col = 0; col < WIDTH; col++)
+        {
+            bottom |= 1L << (col * (HEIGHT + 1));
+        }
+        return bottom;
+    }
+    
+    // Plies left until the game ends under perfect play from both sides
+    static int pliesToEnd(int score, int moves)
+    {
+        if (score == 0)
+        {
+            return CELLS - moves;
+        }
+        
+        // The winner's last disc lands when the board holds this many discs
+        int finalCount = CELLS + 2 - 2 * Math.abs(score);
+        boolean sideToMoveWins = score > 0;
+        if (((finalCount - moves) % 2 == 1) != sideToMoveWins)
+        {
+            finalCount--;
+        }
+        return finalCount - moves;
+    }
+}
\ No newline at end of file
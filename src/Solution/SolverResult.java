@@ -0,0 +1,50 @@
+package Solution;
+
+// Exact game-theoretic value of a position, from the side to move
+public final class SolverResult
+{
+    public static final int
+        LOSS = -1,
+        DRAW = 0,
+        WIN = 1;
+    
+    private final int score;
+    private final int bestMove;
+    private final int distance;
+    
+    public SolverResult(int score, int bestMove, int distance)
+    {
+        this.score = score;
+        this.bestMove = bestMove;
+        this.distance = distance;
+    }
+    
+    public int getOutcome()
+    {
+        return Integer.signum(score);
+    }
+    
+    // Positive for a win, larger the sooner it comes; negative for a loss
+    public int getScore()
+    {
+        return score;
+    }
+    
+    public int getBestMove()
+    {
+        return bestMove;
+    }
+    
+    // Plies until the game ends with perfect play from both sides
+    public int getDistance()
+    {
+        return distance;
+    }
+    
+    @Override
+    public String toString()
+    {
+        String outcome = (score > 0) ? "win" : (score < 0) ? "loss" : "draw";
+        return outcome + " in " + distance + " plies, play column " + bestMove;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,390 @@
+package Solution;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Headless engine-vs-engine matches for checking engine changes at scale.
+//
+// Games are played in pairs from the same random opening with colours
+// swapped, so neither side gains from a lopsided opening or from moving
+// first. Each worker thread keeps its own pair of engines for all of its
+// games and clears their tables between games, unless the engines share
+// tables across the whole tournament. Then A's engines share one table and
+// B's another of the same size, so neither side reads results the other
+// searched. With a journal every game is recorded, A's name and level first
+// when A played red.
+//
+// Usage: Tournament [--games N] [--threads N] [--plies N] [--seed N]
+//                   [--a-level L] [--b-level L] [--a-time MS] [--b-time MS]
+//                   [--table-size N] [--shared-table-mb N] [--book FILE]
+//                   [--rows N] [--cols N] [--connect N] [--journal FILE]
+public final class Tournament
+{
+    public static final int DEFAULT_GAMES = 1000;
+    public static final int DEFAULT_OPENING_PLIES = 4;
+    public static final int DEFAULT_TABLE_SIZE = 1 << 18;
+    
+    private final GameConfig configA;
+    private final GameConfig configB;
+    private final int games;
+    private final int threads;
+    private final int openingPlies;
+    private final long seed;
+    private final OpeningBook openingBook;
+    private final TranspositionTable sharedTableA;
+    private final TranspositionTable sharedTableB;
+    private GameJournal journal;
+    
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private final LongAdder winsA = new LongAdder();
+    private final LongAdder winsB = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder movesA = new LongAdder();
+    private final LongAdder movesB = new LongAdder();
+    private final LongAdder nanosA = new LongAdder();
+    private final LongAdder nanosB = new LongAdder();
+    
+    public Tournament(GameConfig configA, GameConfig configB, int games, int threads,
+                      int openingPlies, long seed)
+    {
+        if (games < 1)
+        {
+            throw new IllegalArgumentException("Invalid game count");
+        }
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("Invalid thread count");
+        }
+        if (configA.getRows() != configB.getRows() || 
+            configA.getCols() != configB.getCols() || 
+            configA.getConnect() != configB.getConnect())
+        {
+            throw new IllegalArgumentException("Both sides must play the same board");
+        }
+        if (openingPlies < 0 || openingPlies >= configA.getRows() * configA.getCols())
+        {
+            throw new IllegalArgumentException("Invalid opening plies");
+        }
+        
+        this.configA = configA;
+        this.configB = configB;
+        this.games = games;
+        this.threads = threads;
+        this.openingPlies = openingPlies;
+        this.seed = seed;
+        // Both sides use the same book, so it is mapped once and shared
+        this.openingBook = GameController.loadOpeningBook(configA);
+        this.sharedTableA = createSharedTable(configA);
+        this.sharedTableB = createSharedTable(configB);
+    }
+    
+    // Null when the side's engines keep a table each
+    private static TranspositionTable createSharedTable(GameConfig config)
+    {
+        return (config.getSharedTableMemory() > 0)
+            ? TranspositionTable.withMemoryLimit(config.getSharedTableMemory())
+            : null;
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int games = DEFAULT_GAMES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int plies = DEFAULT_OPENING_PLIES;
+        long seed = System.nanoTime();
+        int levelA = GameConfig.EXPERT;
+        int levelB = GameConfig.ADVANCED;
+        long timeA = 0;
+        long timeB = 0;
+        int tableSize = DEFAULT_TABLE_SIZE;
+        long sharedMemory = 0;
+        String book = null;
+        int rows = GameModel.ROWS;
+        int cols = GameModel.COLS;
+        int connect = GameModel.CONNECT;
+        String journalPath = null;
+        
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            String value = args[i + 1];
+            switch (args[i])
+            {
+                case "--games": games = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--plies": plies = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--a-level": levelA = Integer.parseInt(value); break;
+                case "--b-level": levelB = Integer.parseInt(value); break;
+                case "--a-time": timeA = Long.parseLong(value); break;
+                case "--b-time": timeB = Long.parseLong(value); break;
+                case "--table-size": tableSize = Integer.parseInt(value); break;
+                case "--shared-table-mb": sharedMemory = Long.parseLong(value) << 20; break;
+                case "--book": book = value; break;
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--cols": cols = Integer.parseInt(value); break;
+                case "--connect": connect = Integer.parseInt(value); break;
+                case "--journal": journalPath = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("Missing value for " + args[args.length - 1]);
+        }
+        
+        GameConfig configA = createConfig(levelA, timeA, tableSize, sharedMemory, book);
+        GameConfig configB = createConfig(levelB, timeB, tableSize, sharedMemory, book);
+        configA.setBoardSize(rows, cols, connect);
+        configB.setBoardSize(rows, cols, connect);
+        
+        Tournament tournament = new Tournament(configA, configB, games, threads, plies, seed);
+        System.out.printf("Level %d vs level %d, %d games on %d threads, %d random plies, seed %d%n",
+                          levelA, levelB, games, threads, plies, seed);
+        if (!configA.isStandardBoard())
+        {
+            System.out.printf("%dx%d board, connect %d%n", cols, rows, connect);
+        }
+        
+        long start = System.nanoTime();
+        if (journalPath == null)
+        {
+            tournament.run();
+        }
+        else
+        {
+            try (GameJournal journal = GameJournal.open(Paths.get(journalPath)))
+            {
+                tournament.setJournal(journal);
+                tournament.run();
+            }
+        }
+        tournament.printReport(System.nanoTime() - start);
+    }
+    
+    private static GameConfig createConfig(int level, long timeLimit, int tableSize, long sharedMemory, 
+                                           String book)
+    {
+        GameConfig config = new GameConfig(GameConfig.COMPUTER_COMPUTER, level);
+        config.setMoveTimeLimit(timeLimit);
+        config.setTranspositionTableSize(tableSize);
+        config.setSharedTableMemory(sharedMemory);
+        config.setOpeningBookPath(book);
+        // Sharing one cache file between workers would need locking, and
+        // tables carried over from earlier runs would skew the results
+        config.setEndgameCachePath(null);
+        config.setAnalysisCachePath(null);
+        return config;
+    }
+    
+    // Null records nothing
+    public void setJournal(GameJournal journal)
+    {
+        this.journal = journal;
+    }
+    
+    public void run() throws InterruptedException
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+            {
+                workers.add(pool.submit(this::playGames));
+            }
+            for (Future<?> worker : workers)
+            {
+                worker.get();
+            }
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Tournament game failed", e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+    
+    private void playGames()
+    {
+        GameModel model = configA.createModel();
+        GameModel searchModel = configA.createModel();
+        AIEngine engineA = createEngine(configA, searchModel, sharedTableA);
+        AIEngine engineB = createEngine(configB, searchModel, sharedTableB);
+        byte[] moves = new byte[model.getRows() * model.getCols()];
+        try
+        {
+            for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement())
+            {
+                // A shared table holds the other workers' results too
+                if (sharedTableA == null)
+                {
+                    engineA.clearTable();
+                }
+                if (sharedTableB == null)
+                {
+                    engineB.clearTable();
+                }
+                playGame(game, model, searchModel, engineA, engineB, moves);
+            }
+        }
+        finally
+        {
+            engineA.shutdown();
+            engineB.shutdown();
+        }
+    }
+    
+    private AIEngine createEngine(GameConfig config, GameModel searchModel, TranspositionTable sharedTable)
+    {
+        TranspositionTable table = (sharedTable != null)
+            ? sharedTable
+            : new TranspositionTable(config.getTranspositionTableSize());
+        return GameController.createEngine(config, searchModel, openingBook, null, table);
+    }
+    
+    // A plays red in even games; odd games replay the same opening with the
+    // colours swapped
+    private void playGame(int game, GameModel model, GameModel searchModel,
+                          AIEngine engineA, AIEngine engineB, byte[] moves)
+    {
+        long start = System.currentTimeMillis();
+        boolean aIsRed = game % 2 == 0;
+        char player = playOpening(model, new SplittableRandom(seed + game / 2), moves);
+        
+        while (true)
+        {
+            boolean aToMove = (player == GameModel.RED) == aIsRed;
+            AIEngine engine = aToMove ? engineA : engineB;
+            
+            searchModel.copyFrom(model);
+            int col = engine.findBestMove(player);
+            (aToMove ? movesA : movesB).increment();
+            (aToMove ? nanosA : nanosB).add(engine.getSearchStats().getElapsedNanos());
+            
+            model.makeMove(col, player);
+            moves[model.getMoveCount() - 1] = (byte)col;
+            if (model.checkWinnerAt(col) != GameModel.EMPTY)
+            {
+                (aToMove ? winsA : winsB).increment();
+                record(aIsRed, player, start, moves, model.getMoveCount());
+                return;
+            }
+            if (model.isBoardFull())
+            {
+                draws.increment();
+                record(aIsRed, GameModel.EMPTY, start, moves, model.getMoveCount());
+                return;
+            }
+            player = (player == GameModel.RED) ? GameModel.BLACK : GameModel.RED;
+        }
+    }
+    
+    private void record(boolean aIsRed, char winner, long start, byte[] moves, int moveCount)
+    {
+        if (journal == null)
+        {
+            return;
+        }
+        
+        GameConfig red = aIsRed ? configA : configB;
+        String nameA = "A (level " + configA.getDifficultyLevel() + ")";
+        String nameB = "B (level " + configB.getDifficultyLevel() + ")";
+        try
+        {
+            journal.append(new GameRecord(red, aIsRed ? nameA : nameB, aIsRed ? nameB : nameA, winner,
+                                          start, System.currentTimeMillis() - start, moves, moveCount));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Plays random moves that do not end the game; returns the side to move.
+    // The opening stops early when every legal move would win. It never
+    // fills the board, as the constructor keeps it shorter than that.
+    private char playOpening(GameModel model, SplittableRandom random, byte[] moves)
+    {
+        model.reset();
+        char player = GameModel.RED;
+        int[] columns = new int[model.getCols()];
+        for (int ply = 0; ply < openingPlies; ply++)
+        {
+            int count = 0;
+            for (int col = 0; col < model.getCols(); col++)
+            {
+                if (model.isColumnFull(col))
+                {
+                    continue;
+                }
+                model.makeMove(col, player);
+                if (model.checkWinnerAt(col) == GameModel.EMPTY)
+                {
+                    columns[count++] = col;
+                }
+                model.undoMove(col);
+            }
+            if (count == 0)
+            {
+                break;
+            }
+            
+            int col = columns[random.nextInt(count)];
+            model.makeMove(col, player);
+            moves[model.getMoveCount() - 1] = (byte)col;
+            player = (player == GameModel.RED) ? GameModel.BLACK : GameModel.RED;
+        }
+        return player;
+    }
+    
+    public void printReport(long elapsedNanos)
+    {
+        long wins = winsA.sum();
+        long losses = winsB.sum();
+        long drawn = draws.sum();
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        
+        System.out.printf("A: %d wins, %d draws, %d losses (score %.1f%%)%n",
+                          wins, drawn, losses,
+                          100.0 * (wins + drawn / 2.0) / Math.max(wins + drawn + losses, 1));
+        System.out.printf("Average move: A %.2f ms, B %.2f ms%n",
+                          averageMillis(nanosA, movesA),
+                          averageMillis(nanosB, movesB));
+        System.out.printf("%d games in %.1f s (%.1f games/s)%n",
+                          games, seconds, games / seconds);
+    }
+    
+    private static double averageMillis(LongAdder nanos, LongAdder moves)
+    {
+        long count = moves.sum();
+        return (count == 0) ? 0.0 : nanos.sum() / 1_000_000.0 / count;
+    }
+    
+    public long getWinsA()
+    {
+        return winsA.sum();
+    }
+    
+    public long getWinsB()
+    {
+        return winsB.sum();
+    }
+    
+    public long getDraws()
+    {
+        return draws.sum();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,234 @@
+package Solution;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+
+// Fixed-size, direct-mapped cache of search results keyed by position.
+//
+// Safe to share between search threads without locking: each slot stores the
+// key XORed with the entry, so a slot torn by a concurrent write fails the
+// key check on probe and reads as a miss.
+//
+// Slots live off-heap in direct buffers of up to 64 MB each, 16 bytes per
+// slot, so a large table adds nothing to garbage collection work. Tables
+// bigger than the default direct memory limit (the maximum heap size) need
+// -XX:MaxDirectMemorySize.
+//
+// Replacement policy: a slot is overwritten when it is empty, already holds
+// the same position, was written during an earlier search, or holds a result
+// searched to the same or a shallower depth. Otherwise the deeper result from
+// the current search is kept and the new one is dropped.
+public final class TranspositionTable
+{
+    public static final int
+        EXACT = 1,
+        LOWER_BOUND = 2,
+        UPPER_BOUND = 3;
+    
+    public static final int NO_MOVE = -1;
+    public static final int MAX_SIZE = 1 << 30;
+    public static final int SLOT_BYTES = 2 * Long.BYTES;
+    
+    // Packed entry layout: score (32 bits), depth (9), bound (2), move + 1 (5), generation (8).
+    // Depth covers a timed search of the largest board, rows * cols plus one
+    // for the helpers, and move + 1 its 16 columns.
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 41;
+    private static final int MOVE_SHIFT = 43;
+    private static final int GENERATION_SHIFT = 48;
+    
+    private static final int SEGMENT_BITS = 22;
+    
+    private static final Map<Integer, TranspositionTable> shared = new HashMap<>();
+    
+    private final ByteBuffer[] segments;
+    private final int size;
+    private final int indexMask;
+    private final int segmentMask;
+    private volatile int generation;
+    
+    public TranspositionTable(int size)
+    {
+        if (size <= 0 || size > MAX_SIZE || Integer.bitCount(size) != 1)
+        {
+            throw new IllegalArgumentException("Table size must be a power of two");
+        }
+        
+        int segmentSlots = Math.min(size, 1 << SEGMENT_BITS);
+        segments = new ByteBuffer[size / segmentSlots];
+        for (int i = 0; i < segments.length; i++)
+        {
+            segments[i] = ByteBuffer.allocateDirect(segmentSlots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        }
+        this.size = size;
+        indexMask = size - 1;
+        segmentMask = segmentSlots - 1;
+    }
+    
+    // The largest table that fits in the given number of bytes
+    public static TranspositionTable withMemoryLimit(long maxBytes)
+    {
+        long slots = Long.highestOneBit(maxBytes / SLOT_BYTES);
+        if (slots == 0)
+        {
+            throw new IllegalArgumentException("Table memory limit is too small");
+        }
+        return new TranspositionTable((int)Math.min(slots, MAX_SIZE));
+    }
+    
+    // One table for every engine in the process that asks for it at the
+    // given difficulty level, so concurrent games reuse each other's
+    // results. Levels never share, as a strong level's deep entries would
+    // cut off a weak level's searches. Each table is created with its first
+    // caller's memory limit; later limits are ignored.
+    public static synchronized TranspositionTable getShared(int level, long maxBytes)
+    {
+        TranspositionTable table = shared.get(level);
+        if (table == null)
+        {
+            table = withMemoryLimit(maxBytes);
+            shared.put(level, table);
+        }
+        return table;
+    }
+    
+    public void clear()
+    {
+        for (ByteBuffer segment : segments)
+        {
+            for (int offset = 0; offset < segment.capacity(); offset += Long.BYTES)
+            {
+                segment.putLong(offset, 0L);
+            }
+        }
+        generation = 0;
+    }
+    
+    public void newSearch()
+    {
+        generation = (generation + 1) & 0xFF;
+    }
+    
+    // Returns the packed entry for the key, or 0 when the position is not stored
+    public long probe(long key)
+    {
+        int index = indexOf(key);
+        ByteBuffer segment = segmentOf(index);
+        int offset = offsetOf(index);
+        long entry = segment.getLong(offset + Long.BYTES);
+        return ((segment.getLong(offset) ^ entry) == key) ? entry : 0L;
+    }
+    
+    public void store(long key, int depth, int bound, int score, int move)
+    {
+        int index = indexOf(key);
+        ByteBuffer segment = segmentOf(index);
+        int offset = offsetOf(index);
+        long current = segment.getLong(offset + Long.BYTES);
+        
+        if (current != 0L && 
+            (segment.getLong(offset) ^ current) != key && 
+            generationOf(current) == generation && 
+            depthOf(current) > depth)
+        {
+            return;
+        }
+        
+        long entry = (score & 0xFFFFFFFFL) |
+                     ((long)depth << DEPTH_SHIFT) |
+                     ((long)bound << BOUND_SHIFT) |
+                     ((long)(move + 1) << MOVE_SHIFT) |
+                     ((long)generation << GENERATION_SHIFT);
+        segment.putLong(offset + Long.BYTES, entry);
+        segment.putLong(offset, key ^ entry);
+    }
+    
+    public int size()
+    {
+        return size;
+    }
+    
+    public long getMemoryBytes()
+    {
+        return (long)size * SLOT_BYTES;
+    }
+    
+    int getSegmentCount()
+    {
+        return segments.length;
+    }
+    
+    int getSegmentBytes()
+    {
+        return segments[0].capacity();
+    }
+    
+    // Raw view of one segment's slots in native byte order, for snapshots
+    ByteBuffer getSegment(int index)
+    {
+        return segments[index].duplicate().order(ByteOrder.nativeOrder());
+    }
+    
+    // Fills the empty slots of one segment from a snapshot of it, taken from
+    // a table of the same size; slots a search has written since are kept.
+    // Returns the number of slots filled.
+    int warmSegment(int index, ByteBuffer snapshot)
+    {
+        ByteBuffer segment = segments[index];
+        int filled = 0;
+        for (int offset = 0; offset < segment.capacity(); offset += SLOT_BYTES)
+        {
+            long entry = snapshot.getLong(offset + Long.BYTES);
+            if (entry != 0L && segment.getLong(offset + Long.BYTES) == 0L)
+            {
+                segment.putLong(offset + Long.BYTES, entry);
+                segment.putLong(offset, snapshot.getLong(offset));
+                filled++;
+            }
+        }
+        return filled;
+    }
+    
+    private int indexOf(long key)
+    {
+        return (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & indexMask;
+    }
+    
+    private ByteBuffer segmentOf(int index)
+    {
+        return segments[index >>> SEGMENT_BITS];
+    }
+    
+    // Each slot is the XORed key followed by the entry
+    private int offsetOf(int index)
+    {
+        return (index & segmentMask) * SLOT_BYTES;
+    }
+    
+    public static int scoreOf(long entry)
+    {
+        return (int)entry;
+    }
+    
+    public static int depthOf(long entry)
+    {
+        return (int)(entry >>> DEPTH_SHIFT) & 0x1FF;
+    }
+    
+    public static int boundOf(long entry)
+    {
+        return (int)(entry >>> BOUND_SHIFT) & 0x3;
+    }
+    
+    public static int moveOf(long entry)
+    {
+        return ((int)(entry >>> MOVE_SHIFT) & 0x1F) - 1;
+    }
+    
+    private static int generationOf(long entry)
+    {
+        return (int)(entry >>> GENERATION_SHIFT) & 0xFF;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,113 @@
+package Solution;
+
+import javax.swing.Timer;
+
+// Decides when the computer's moves are played. Every step of a turn is
+// its own event on the EDT: the search starts as soon as the turn does and
+// runs on the search thread, the move it finds is held until the move delay
+// has passed since the previous move and the previous disc has landed, and
+// playing it starts the next turn. Nothing calls back into itself, so the
+// stack stays flat however long the game runs and the view paints between
+// moves.
+//
+// Paused, found moves are held; each step plays one and stays paused.
+final class TurnScheduler
+{
+    private final GameController controller;
+    private final GameView view;
+    private final long moveDelay;
+    private final Timer delayTimer;
+    private long lastMoveNanos;
+    private int pendingSearchId;
+    private int pendingColumn = -1;
+    private boolean paused;
+    private int steps;
+    
+    TurnScheduler(GameController controller, GameView view, long moveDelay)
+    {
+        this.controller = controller;
+        this.view = view;
+        this.moveDelay = moveDelay;
+        this.delayTimer = new Timer(0, e -> playWhenDue());
+        delayTimer.setRepeats(false);
+    }
+    
+    // Called for every move played, the human's too, as the delay runs
+    // from the last move on the board
+    void movePlayed()
+    {
+        lastMoveNanos = System.nanoTime();
+    }
+    
+    // The search's result, on the EDT
+    void moveFound(int searchId, int column)
+    {
+        pendingSearchId = searchId;
+        pendingColumn = column;
+        playWhenDue();
+    }
+    
+    private void playWhenDue()
+    {
+        if (pendingColumn < 0 || (paused && steps == 0))
+        {
+            return;
+        }
+        
+        // A step plays at once
+        long wait = moveDelay - (System.nanoTime() - lastMoveNanos) / 1_000_000;
+        if (!paused && wait > 0)
+        {
+            delayTimer.setInitialDelay((int)wait);
+            delayTimer.restart();
+            return;
+        }
+        
+        int searchId = pendingSearchId;
+        int column = pendingColumn;
+        pendingColumn = -1;
+        if (steps > 0)
+        {
+            steps--;
+        }
+        view.runAfterDrop(() -> controller.finishComputerMove(searchId, column));
+    }
+    
+    boolean isPaused()
+    {
+        return paused;
+    }
+    
+    void pause()
+    {
+        paused = true;
+        steps = 0;
+        delayTimer.stop();
+    }
+    
+    void resume()
+    {
+        paused = false;
+        steps = 0;
+        playWhenDue();
+    }
+    
+    // Plays the next computer move, or the one still being searched once
+    // it is found
+    void step()
+    {
+        if (paused)
+        {
+            steps++;
+            playWhenDue();
+        }
+    }
+    
+    // Drops any move held back, as when a new game starts
+    void cancel()
+    {
+        pendingColumn = -1;
+        steps = 0;
+        delayTimer.stop();
+    }
+}
\ No newline at end of file